@@ -0,0 +1,61 @@
+package SolitaireSolver;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+/**
+ * Deals class holding the fixed set of seeded games every benchmark runs over.
+ * Each game is played a few moves in with the priority heuristic so the benchmarks see mid-game positions
+ * as well as fresh deals. Benchmarks take the games in turn, so results are averaged over the whole set.
+ */
+@State(Scope.Thread)
+public class Deals {
+    @Param({"42"})
+    public long seed;
+
+    @Param({"64"})
+    public int numDeals;
+
+    @Param({"10"})
+    public int movesIn;
+
+    Solitaire[] games;
+    ArrayList<ArrayList<Move>> possibleMoves;
+    SplittableRandom random;
+    private int next;
+
+    @Setup
+    public void setup() {
+        games = new Solitaire[numDeals];
+        possibleMoves = new ArrayList<>();
+        for (int i = 0; i < numDeals; i++) {
+            Solitaire game = new Solitaire(new Deck(new SplittableRandom(seed + i)));
+            for (int j = 0; j < movesIn; j++) {
+                ArrayList<Move> moves = game.getPossibleMoves();
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(game.getBestMoveWithPriority(moves));
+            }
+            games[i] = game;
+            possibleMoves.add(game.getPossibleMoves());
+        }
+        random = new SplittableRandom(seed);
+        next = 0;
+    }
+
+    /**
+     * Returns the index of the next game to benchmark, cycling through the set.
+     * @return the game index
+     */
+    int nextIndex() {
+        int index = next;
+        next = (next + 1) % games.length;
+        return index;
+    }
+}
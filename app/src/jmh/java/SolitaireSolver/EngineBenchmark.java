@@ -0,0 +1,80 @@
+package SolitaireSolver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EngineBenchmark class measuring the game engine operations the solvers run on every step.
+ * Moves made by a benchmark are undone within the same call, and the stock index that move generation draws
+ * through is put back, so every call sees the same deal set.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class EngineBenchmark {
+    private final MoveBuffer buffer = new MoveBuffer();
+    private final MoveUndo undo = new MoveUndo();
+
+    @Benchmark
+    public ArrayList<Move> getPossibleMoves(Deals deals) {
+        Solitaire game = deals.games[deals.nextIndex()];
+        int cardIndex = game.getStock().getCardIndex();
+        ArrayList<Move> moves = game.getPossibleMoves();
+        game.getStock().setCardIndex(cardIndex);
+        return moves;
+    }
+
+    @Benchmark
+    public int generateMoves(Deals deals) {
+        Solitaire game = deals.games[deals.nextIndex()];
+        int cardIndex = game.getStock().getCardIndex();
+        game.generateMoves(buffer);
+        game.getStock().setCardIndex(cardIndex);
+        return buffer.size();
+    }
+
+    @Benchmark
+    public long makeMove(Deals deals) {
+        int index = deals.nextIndex();
+        Solitaire game = deals.games[index];
+        ArrayList<Move> moves = deals.possibleMoves.get(index);
+        if (moves.isEmpty()) {
+            return game.getStateHash();
+        }
+        game.makeMove(moves.getFirst(), undo);
+        long hash = game.getStateHash();
+        game.unmakeMove(undo);
+        return hash;
+    }
+
+    @Benchmark
+    public String getGameState(Deals deals) {
+        return deals.games[deals.nextIndex()].getGameState();
+    }
+
+    @Benchmark
+    public void gameStateCopy(Deals deals) {
+        Solitaire game = deals.games[deals.nextIndex()];
+        new GameStateCopy(game).restoreGameState(game);
+    }
+
+    @Benchmark
+    public void determineMoveType(Deals deals, Blackhole blackhole) {
+        int index = deals.nextIndex();
+        Solitaire game = deals.games[index];
+        for (Move move : deals.possibleMoves.get(index)) {
+            Move copy = move.getDst() == null ? new Move(move.getCard(), move.getSrc()) :
+                    new Move(move.getCard(), move.getSrc(), move.getDst());
+            copy.determineMoveType(game);
+            blackhole.consume(copy);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package SolitaireSolver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SolverBenchmark class measuring a single Monte Carlo simulation and a complete Monte Carlo decision.
+ * Every simulated move is recorded in a journal and rewound, so every call sees the same deal set.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class SolverBenchmark {
+    @Param({"10"})
+    public int randomnessPercentage;
+
+    @Param({"10"})
+    public int numSimulations;
+
+    private final MoveJournal journal = new MoveJournal();
+
+    @Setup
+    public void setup() {
+        Run.RANDOMNESS_PERCENTAGE = randomnessPercentage;
+    }
+
+    @Benchmark
+    public int rollout(Deals deals) {
+        Solitaire game = deals.games[deals.nextIndex()];
+        int result = Run.greedyHeuristicPrioritySolitaireSolverWithRandom(game, journal, deals.random);
+        journal.rewind(game, 0);
+        return result;
+    }
+
+    @Benchmark
+    public Move monteCarloDecision(Deals deals) {
+        Solitaire game = deals.games[deals.nextIndex()];
+        ArrayList<Move> possibleMoves = game.getPossibleMoves();
+        if (possibleMoves.isEmpty()) {
+            return null;
+        }
+        Run.simulateMoves(game, possibleMoves, numSimulations, journal, deals.random);
+        journal.rewind(game, 0);
+        return game.getBestMoveMonetCarlo(possibleMoves, deals.random);
+    }
+}
@@ -2,34 +2,79 @@ package SolitaireSolver;
 
 /**
  * Card class representing a playing card in the game of Solitaire.
- * Each card has a rank, suit, location, and color (black or red).
+ * Each card has a rank, suit, and color (black or red).
+ * There is exactly one immutable instance of each of the 52 cards, shared by every game. Where a card is
+ * in a game is tracked by the Solitaire game itself, so copying a game never copies cards.
  */
-public class Card {
-    int rank, location;
-    // Location: 7: Stock, 0-6: Piles
-    char suit;
-    boolean black;
+public final class Card {
+    private static final char[] SUITS = {'C', 'D', 'H', 'S'};
+    private static final Card[] CARDS = new Card[52];
+    private static final long[] RANK_COLOUR_MASKS = new long[15 * 2];
+    // Bitmask of card ids for each rank and colour, indexed by rank * 2 + (black ? 1 : 0). Ranks 0 and 14 are empty
+
+    static {
+        for (int suit = 0; suit < SUITS.length; suit++) {
+            for (int rank = 1; rank <= 13; rank++) {
+                Card card = new Card(rank, SUITS[suit]);
+                CARDS[suit * 13 + (rank - 1)] = card;
+                RANK_COLOUR_MASKS[rank * 2 + (card.black ? 1 : 0)] |= 1L << card.id;
+            }
+        }
+    }
+
+    final int rank;
+    final int id;
+    // Id: 0-51, unique per card (suit order C, D, H, S)
+    final char suit;
+    final boolean black;
+    private final String name;
 
     /**
      * Constructor for Card.
      * @param rank 1-13
      * @param suit 'S', 'H', 'D', 'C'
      */
-    public Card(int rank, char suit) {
+    private Card(int rank, char suit) {
         this.rank = rank;
         this.suit = suit;
         black = (suit == 'S' || suit == 'C');
+        id = "CDHS".indexOf(suit) * 13 + (rank - 1);
+        name = switch (rank) {
+            case 1 -> "A" + suit;
+            case 11 -> "J" + suit;
+            case 12 -> "Q" + suit;
+            case 13 -> "K" + suit;
+            default -> rank + "" + suit;
+        };
+    }
+
+    /**
+     * Returns the shared instance of a card.
+     * @param rank 1-13
+     * @param suit 'S', 'H', 'D', 'C'
+     * @return the card
+     */
+    public static Card getCard(int rank, char suit) {
+        return CARDS["CDHS".indexOf(suit) * 13 + (rank - 1)];
     }
 
     /**
-     * Deep copy constructor for Card.
-     * @param other the Card to copy
+     * Returns the shared instance of a card.
+     * @param id 0-51
+     * @return the card
      */
-    public Card(Card other) {
-        this.rank = other.rank;
-        this.suit = other.suit;
-        this.black = other.black;
-        this.location = other.location;
+    public static Card getCard(int id) {
+        return CARDS[id];
+    }
+
+    /**
+     * Returns the ids of the cards of a rank and colour as a bitmask, bit i set for the card with id i.
+     * @param rank 0-14, where 0 and 14 have no cards
+     * @param black true for clubs and spades, false for diamonds and hearts
+     * @return the bitmask of the two cards of that rank and colour
+     */
+    public static long getRankColourMask(int rank, boolean black) {
+        return RANK_COLOUR_MASKS[rank * 2 + (black ? 1 : 0)];
     }
 
     /**
@@ -38,13 +83,7 @@ public class Card {
      */
     @Override
     public String toString() {
-        return switch (rank) {
-            case 1 -> "A" + suit;
-            case 11 -> "J" + suit;
-            case 12 -> "Q" + suit;
-            case 13 -> "K" + suit;
-            default -> rank + "" + suit;
-        };
+        return name;
     }
 
     public int getRank() {
@@ -59,10 +98,7 @@ public class Card {
         return black;
     }
 
-    public int getLocation() {
-        return location;
-    }
-    public void setLocation(int location) {
-        this.location = location;
+    public int getId() {
+        return id;
     }
 }
@@ -0,0 +1,156 @@
+package SolitaireSolver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.random.RandomGenerator;
+
+/**
+ * CardStack class representing a fixed-capacity stack of cards.
+ * Replaces java.util.Stack, whose every call takes a lock even though each game is only used by one thread.
+ * Cards are kept in an array with a size, and the position of each card is tracked by id so indexOf is
+ * constant time.
+ */
+public class CardStack implements Iterable<Card> {
+    private final Card[] cards;
+    private final byte[] positions;
+    // Position of each card id. Only valid while cards[position] is that card and position < size
+    private int size;
+
+    /**
+     * Constructor for CardStack.
+     * @param capacity the most cards the stack can hold
+     */
+    public CardStack(int capacity) {
+        cards = new Card[capacity];
+        positions = new byte[Zobrist.NUM_CARDS];
+    }
+
+    /**
+     * Copy constructor for CardStack.
+     * Cards are shared, so this is an array copy.
+     * @param other the CardStack to copy
+     */
+    public CardStack(CardStack other) {
+        cards = other.cards.clone();
+        positions = other.positions.clone();
+        size = other.size;
+    }
+
+    public void push(Card card) {
+        positions[card.getId()] = (byte) size;
+        cards[size++] = card;
+    }
+
+    public Card pop() {
+        if (size == 0) {
+            throw new NoSuchElementException("CardStack is empty, cannot pop card.");
+        }
+        Card card = cards[--size];
+        cards[size] = null;
+        return card;
+    }
+
+    public Card peek() {
+        if (size == 0) {
+            throw new NoSuchElementException("CardStack is empty, cannot peek card.");
+        }
+        return cards[size - 1];
+    }
+
+    public Card get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return cards[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the index of a card in the stack in constant time.
+     * @param card the card to find
+     * @return the index of the card, or -1 if it is not in the stack
+     */
+    public int indexOf(Card card) {
+        int position = positions[card.getId()];
+        if (position < size && cards[position] == card) {
+            return position;
+        }
+        return -1;
+    }
+
+    /**
+     * Moves every card from fromIndex upwards onto the top of another stack, keeping their order.
+     * @param dst the stack to move the cards onto
+     * @param fromIndex the index of the lowest card to move
+     */
+    public void moveTo(CardStack dst, int fromIndex) {
+        int numCards = size - fromIndex;
+        System.arraycopy(cards, fromIndex, dst.cards, dst.size, numCards);
+        for (int i = 0; i < numCards; i++) {
+            dst.positions[cards[fromIndex + i].getId()] = (byte) (dst.size + i);
+        }
+        dst.size += numCards;
+        Arrays.fill(cards, fromIndex, size, null);
+        size = fromIndex;
+    }
+
+    /**
+     * Shuffles the stack.
+     * Uses the same swaps as Collections.shuffle, so a seeded generator deals the same cards as it did when
+     * the deck was a java.util.Stack.
+     * @param random the generator to shuffle with
+     */
+    public void shuffle(RandomGenerator random) {
+        for (int i = size; i > 1; i--) {
+            int j = random.nextInt(i);
+            Card card = cards[i - 1];
+            cards[i - 1] = cards[j];
+            cards[j] = card;
+        }
+        for (int i = 0; i < size; i++) {
+            positions[cards[i].getId()] = (byte) i;
+        }
+    }
+
+    public ArrayList<Card> toList() {
+        ArrayList<Card> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(cards[i]);
+        }
+        return list;
+    }
+
+    @Override
+    public Iterator<Card> iterator() {
+        return new Iterator<>() {
+            int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Card next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                return cards[index++];
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(Arrays.copyOf(cards, size));
+    }
+}
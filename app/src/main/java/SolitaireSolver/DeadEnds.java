@@ -0,0 +1,89 @@
+package SolitaireSolver;
+
+/**
+ * DeadEnds class holding cheap checks that prove a game can no longer be won, so a solver can stop playing it.
+ * A card that is face down, or at the bottom of its pile's build stack, can only leave its pile by moving on
+ * its own: to the foundation, or onto one of the two cards a rank higher of the other colour. If a lower card of
+ * its suit is under it in the same pile, it cannot go to the foundation first. If each of the cards it could be
+ * moved onto is then either in the foundation or under it too, it can never move, and the cards under it can
+ * never be played.
+ * The same holds for two such cards in different piles when each can only be moved onto cards under the other,
+ * as neither can move first.
+ * Kings are never counted as stuck, as they can move to any pile that is emptied.
+ */
+public final class DeadEnds {
+    private static final long[] LOWER_SAME_SUIT = new long[52];
+    // Bitmask of the lower cards of each card's suit, indexed by id
+    private static final long[] PARENTS = new long[52];
+    // Bitmask of the cards each card can be moved onto in a pile, indexed by id
+
+    static {
+        for (int id = 0; id < 52; id++) {
+            Card card = Card.getCard(id);
+            LOWER_SAME_SUIT[id] = (1L << id) - (1L << (id - (card.getRank() - 1)));
+            PARENTS[id] = Card.getRankColourMask(card.getRank() + 1, !card.isBlack());
+        }
+    }
+
+    static final int SCRATCH_SIZE = 2 * 28;
+    // Cards under and cards to move onto of each stuck card found: at most the 21 face down and 7 bottom cards
+    private static final ThreadLocal<long[]> STUCK = ThreadLocal.withInitial(() -> new long[SCRATCH_SIZE]);
+
+    private DeadEnds() {
+    }
+
+    /**
+     * Returns whether the game can be proven lost by the checks above.
+     * Takes one pass over the face down cards of each pile, so it can be called after every move.
+     * @param game the game to check
+     * @return true if the game can no longer be won, false if it might still be
+     */
+    public static boolean isDeadEnd(Solitaire game) {
+        return isDeadEnd(game, STUCK.get());
+    }
+
+    /**
+     * Returns whether the game can be proven lost by the checks above, working in the given array.
+     * @param game the game to check
+     * @param stuck an array of SCRATCH_SIZE longs, used by no other thread while this runs
+     * @return true if the game can no longer be won, false if it might still be
+     */
+    public static boolean isDeadEnd(Solitaire game, long[] stuck) {
+        if (game.getHiddenCardMask() == 0) {
+            return false;
+        } // Only a card with face down cards under it can be stuck
+        long foundationCards = game.getFoundation().getCards();
+        int numStuck = 0;
+
+        for (Pile pile : game.getPiles()) {
+            CardStack hidden = pile.getHiddenCards();
+            long under = 0;
+            for (int i = 0; i <= hidden.size(); i++) {
+                Card card = i < hidden.size() ? hidden.get(i) : pile.getBottomCard();
+                if (card == null) {
+                    break;
+                }
+                int id = card.getId();
+                if (card.getRank() != 13 && (under & LOWER_SAME_SUIT[id]) != 0) {
+                    long parents = PARENTS[id] & ~foundationCards & ~under;
+                    if (parents == 0) {
+                        return true;
+                    }
+                    stuck[2 * numStuck] = under;
+                    stuck[2 * numStuck + 1] = parents;
+                    numStuck++;
+                }
+                under |= 1L << id;
+            }
+        }
+
+        for (int a = 0; a < numStuck; a++) {
+            for (int b = a + 1; b < numStuck; b++) {
+                if ((stuck[2 * a + 1] & ~stuck[2 * b]) == 0 && (stuck[2 * b + 1] & ~stuck[2 * a]) == 0) {
+                    return true;
+                }
+            }
+        } // Two stuck cards that can each only be moved onto cards under the other
+        return false;
+    }
+}
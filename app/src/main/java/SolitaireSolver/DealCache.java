@@ -0,0 +1,247 @@
+package SolitaireSolver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * DealCache class keeping the results of solved deals in a file, so a deal solved again with the same settings
+ * does not need to be solved.
+ * A result is keyed by the deal's fingerprint, its index in the run, and the settings that decide how it is
+ * solved (see Run.getConfiguration). The file is a log of records appended as deals are solved, read into memory
+ * when the cache is opened. Only the most recently used maxEntries results are kept, and the file is rewritten
+ * with just those once it holds more than twice as many records.
+ */
+public class DealCache implements AutoCloseable {
+    static final long MAGIC = 0x534F4C4341434845L;
+    // "SOLCACHE"
+
+    /**
+     * Entry class holding the cached result of one deal.
+     */
+    private static class Entry {
+        private final long durationMs;
+        private final long timeToFirstWinMs;
+        private final byte[] outcomes;
+        private final int[] moves;
+
+        private Entry(long durationMs, long timeToFirstWinMs, byte[] outcomes, int[] moves) {
+            this.durationMs = durationMs;
+            this.timeToFirstWinMs = timeToFirstWinMs;
+            this.outcomes = outcomes;
+            this.moves = moves;
+        }
+    }
+
+    private final Path path;
+    private final int maxEntries;
+    private final LinkedHashMap<Long, Entry> entries;
+    private DataOutputStream out;
+    private long numRecords;
+
+    /**
+     * Constructor for DealCache. Reads the cache file if it exists, otherwise creates it.
+     * @param path the cache file
+     * @param maxEntries the most results to keep
+     * @throws IOException if the file cannot be read or written, or is not a deal cache
+     */
+    public DealCache(Path path, int maxEntries) throws IOException {
+        this.path = path;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > DealCache.this.maxEntries;
+            }
+        }; // Access ordered, so the least recently used result is evicted first
+
+        if (Files.exists(path) && Files.size(path) > 0) {
+            long validLength = readEntries();
+            if (numRecords > 2L * entries.size()) {
+                rewrite();
+            }
+            else {
+                openForAppend(validLength);
+            }
+        }
+        else {
+            rewrite();
+        }
+    }
+
+    /**
+     * Returns the fingerprint of a dealt game: a hash of the order of every card, so two deals have the same
+     * fingerprint only if they are the same deal.
+     * @param game the game, before any move is made
+     * @return the fingerprint
+     */
+    public static long fingerprint(Solitaire game) {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (Pile pile : game.getPiles()) {
+            for (Card card : pile.getHiddenCards()) {
+                hash = mix(hash + card.getId());
+            }
+            for (Card card : pile.getBuildStack()) {
+                hash = mix(hash + card.getId());
+            }
+            hash = mix(hash + 52);
+        } // Marks the end of each pile, so cards cannot move between piles without changing the hash
+        for (Card card : game.getStock().getStock()) {
+            hash = mix(hash + card.getId());
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the key of a deal's result.
+     * @param game the game, before any move is made
+     * @param dealIndex the index of the deal in the run, which decides the threads' generators
+     * @param configuration the settings that decide how the deal is solved
+     * @return the key
+     */
+    public static long getKey(Solitaire game, int dealIndex, String configuration) {
+        long hash = mix(fingerprint(game) + dealIndex);
+        for (int i = 0; i < configuration.length(); i++) {
+            hash = mix(hash + configuration.charAt(i));
+        }
+        return hash;
+    }
+
+    /**
+     * Returns a deal's cached result.
+     * @param key the key of the deal's result
+     * @param dealIndex the index of the deal in the run
+     * @param game the game, given to the returned deal
+     * @return the finished deal, or null if the result is not cached
+     */
+    public DealResult get(long key, int dealIndex, Solitaire game) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        return DealResult.restore(dealIndex, game, entry.outcomes.clone(), entry.moves.clone(), entry.durationMs,
+                entry.timeToFirstWinMs);
+    }
+
+    /**
+     * Adds a finished deal's result to the cache.
+     * @param key the key of the deal's result
+     * @param deal the finished deal
+     * @throws IOException if the result cannot be written
+     */
+    public void put(long key, DealResult deal) throws IOException {
+        byte[] outcomes = new byte[deal.getNumThreads()];
+        int[] moves = new int[deal.getNumThreads()];
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = deal.getOutcome(i);
+            moves[i] = deal.getMoves(i);
+        }
+        Entry entry = new Entry((long) deal.getDurationMs(), (long) deal.getTimeToFirstWinMs(), outcomes, moves);
+        entries.put(key, entry);
+        writeEntry(key, entry);
+        numRecords++;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Writes any buffered results, rewriting the file if it holds more than twice as many records as results
+     * kept, then closes the cache.
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (numRecords > 2L * entries.size()) {
+            rewrite();
+        }
+        out.close();
+    }
+
+    private void writeEntry(long key, Entry entry) throws IOException {
+        out.writeLong(key);
+        out.writeLong(entry.durationMs);
+        out.writeLong(entry.timeToFirstWinMs);
+        out.writeShort(entry.outcomes.length);
+        for (int i = 0; i < entry.outcomes.length; i++) {
+            out.writeByte(entry.outcomes[i]);
+            out.writeInt(entry.moves[i]);
+        }
+    }
+
+    /**
+     * Reads every complete record in the file. Later records replace earlier ones with the same key.
+     * @return the length of the file up to the end of the last complete record
+     * @throws IOException if the file cannot be read or is not a deal cache
+     */
+    private long readEntries() throws IOException {
+        long validLength = 8;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readLong() != MAGIC) {
+                throw new IOException(path + " is not a deal cache.");
+            }
+            while (true) {
+                long key = in.readLong();
+                long durationMs = in.readLong();
+                long timeToFirstWinMs = in.readLong();
+                int numThreads = in.readUnsignedShort();
+                byte[] outcomes = new byte[numThreads];
+                int[] moves = new int[numThreads];
+                for (int i = 0; i < numThreads; i++) {
+                    outcomes[i] = in.readByte();
+                    moves[i] = in.readInt();
+                }
+                entries.put(key, new Entry(durationMs, timeToFirstWinMs, outcomes, moves));
+                numRecords++;
+                validLength += 26 + 5L * numThreads;
+            }
+        } catch (EOFException e) {
+            return validLength;
+        } // A record cut short by a killed run is dropped
+    }
+
+    private void openForAppend(long validLength) throws IOException {
+        try (SeekableByteChannel channel = Files.newByteChannel(path, StandardOpenOption.WRITE)) {
+            channel.truncate(validLength);
+        }
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path,
+                StandardOpenOption.APPEND)));
+    }
+
+    /**
+     * Rewrites the file with only the results kept, replacing it once the new file is complete.
+     * @throws IOException if the file cannot be written
+     */
+    private void rewrite() throws IOException {
+        if (out != null) {
+            out.close();
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)));
+        out.writeLong(MAGIC);
+        for (Map.Entry<Long, Entry> entry : entries.entrySet()) {
+            writeEntry(entry.getKey(), entry.getValue());
+        }
+        out.close();
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        numRecords = entries.size();
+        openForAppend(Files.size(path));
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+}
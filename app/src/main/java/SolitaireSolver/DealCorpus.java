@@ -0,0 +1,151 @@
+package SolitaireSolver;
+
+import SolitaireSolver.Exceptions.InvalidNumArgumentsException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DealCorpus class reading a file of stored deals, so the same deals can be solved again by any solver.
+ * The file is a HEADER_SIZE byte header followed by DEAL_SIZE bytes per deal: the id of each card in the deck,
+ * from the bottom to the top. The header holds MAGIC, the format VERSION, the number of deals, and the seed the
+ * deals were generated from. The file is memory-mapped, so deals are read by index without parsing.
+ * Deals are generated the same way Run deals them, so a corpus generated with a seed holds the same deals as a
+ * run with that seed.
+ */
+public class DealCorpus implements AutoCloseable {
+    static final long MAGIC = 0x534F4C4445414C53L;
+    // "SOLDEALS"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int DEAL_SIZE = 52;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int numDeals;
+    private final long seed;
+
+    /**
+     * Constructor for DealCorpus. Opens and memory-maps a corpus file.
+     * @param path the corpus file
+     * @throws IOException if the file cannot be read or is not a deal corpus
+     */
+    public DealCorpus(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_SIZE || buffer.getLong(0) != MAGIC) {
+                throw new IOException(path + " is not a deal corpus.");
+            }
+            if (buffer.getInt(8) != VERSION) {
+                throw new IOException(path + " is deal corpus version " + buffer.getInt(8) + ", expected " +
+                        VERSION + ".");
+            }
+            numDeals = buffer.getInt(12);
+            seed = buffer.getLong(16);
+            if (buffer.capacity() < HEADER_SIZE + (long) numDeals * DEAL_SIZE) {
+                throw new IOException(path + " should hold " + numDeals + " deals but is truncated.");
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a stored deal, ready to be solved.
+     * @param index the index of the deal, from 0 to size() - 1
+     * @return the dealt game
+     */
+    public Solitaire getDeal(int index) {
+        return new Solitaire(new Deck(getCardIds(index)));
+    }
+
+    /**
+     * Returns the card ids of a stored deal, from the bottom of the deck to the top.
+     * @param index the index of the deal, from 0 to size() - 1
+     * @return the card ids
+     */
+    public byte[] getCardIds(int index) {
+        if (index < 0 || index >= numDeals) {
+            throw new IndexOutOfBoundsException("Deal " + index + " out of bounds for corpus of " + numDeals);
+        }
+        byte[] cardIds = new byte[DEAL_SIZE];
+        buffer.get(HEADER_SIZE + index * DEAL_SIZE, cardIds);
+        return cardIds;
+    }
+
+    public int size() {
+        return numDeals;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes a corpus of deals, dealt the same way Run deals them with the given seed.
+     * @param path the file to write, replacing any existing one
+     * @param numDeals the number of deals
+     * @param seed the seed to deal from
+     * @throws IOException if the file cannot be written
+     */
+    public static void generate(Path path, int numDeals, long seed) throws IOException {
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putLong(MAGIC).putInt(VERSION).putInt(numDeals).putLong(seed).rewind();
+            writeFully(out, header);
+
+            ByteBuffer deals = ByteBuffer.allocate(1024 * DEAL_SIZE);
+            for (int i = 0; i < numDeals; i++) {
+                deals.put(new Deck(Run.getDealRandom(seed, i).split()).toCardIds());
+                if (!deals.hasRemaining()) {
+                    writeFully(out, deals.flip());
+                    deals.clear();
+                }
+            }
+            writeFully(out, deals.flip());
+            out.force(true);
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Generates a deal corpus.
+     * Accepts command line arguments for the number of deals and the file to write.
+     * '--seed=n' sets the seed to deal from, otherwise a random seed is chosen.
+     * @param args command line arguments
+     */
+    public static void main(String[] args) throws IOException {
+        List<String> positional = new ArrayList<>();
+        Map<String, String> options = Run.parseOptions(args, positional);
+        if (positional.size() < 2) {
+            throw new InvalidNumArgumentsException("2 arguments required: <numDeals> <file> You only provided " +
+                    positional.size() + ".");
+        }
+        int numDeals = Integer.parseInt(positional.get(0));
+        Path path = Path.of(positional.get(1));
+        long seed = options.containsKey("seed") ? Long.parseLong(options.get("seed")) : Run.SEED;
+
+        generate(path, numDeals, seed);
+        System.out.println("Wrote " + numDeals + " deals with seed " + seed + " to " + path);
+    }
+}
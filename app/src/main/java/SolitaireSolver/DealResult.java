@@ -0,0 +1,228 @@
+package SolitaireSolver;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DealResult class collecting the results of every thread solving the same deal.
+ * Threads record their result as they finish, so the deal can be reported once the last thread is done,
+ * whichever executor the threads were run on.
+ */
+public class DealResult {
+    public static final byte LOST = 0;
+    public static final byte WON = 1;
+    public static final byte UNKNOWN = 2;
+    public static final byte CANCELLED = 3;
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+
+    private final int dealIndex;
+    private final Solitaire game;
+    private final int numThreads;
+    private boolean restored;
+    private final byte[] outcomes;
+    private final int[] moves;
+    // The outcome and number of moves made of each thread, by thread index
+    private final AtomicInteger numWins = new AtomicInteger();
+    private final AtomicInteger numUnknown = new AtomicInteger();
+    private final AtomicInteger numCancelled = new AtomicInteger();
+    private final AtomicInteger numFinished = new AtomicInteger();
+    private final AtomicLong startTime = new AtomicLong(NOT_STARTED);
+    private final AtomicLong firstWinTime = new AtomicLong(NOT_STARTED);
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile long endTime;
+    private volatile boolean cancelled;
+
+    /**
+     * Constructor for DealResult.
+     * @param dealIndex the index of the deal in the run
+     * @param game the dealt game each thread solves a copy of
+     * @param numThreads the number of threads solving the deal
+     */
+    public DealResult(int dealIndex, Solitaire game, int numThreads) {
+        this.dealIndex = dealIndex;
+        this.game = game;
+        this.numThreads = numThreads;
+        this.outcomes = new byte[numThreads];
+        this.moves = new int[numThreads];
+    }
+
+    /**
+     * Returns a finished deal rebuilt from the outcomes and times recorded for it in a progress journal or cache.
+     * @param dealIndex the index of the deal in the run
+     * @param game the dealt game, or null if it is not known
+     * @param outcomes the outcome of each thread (LOST, WON, UNKNOWN or CANCELLED)
+     * @param moves the number of moves made by each thread
+     * @param durationMs the time taken, in milliseconds
+     * @param timeToFirstWinMs the time to the first win, in milliseconds
+     * @return the finished deal
+     */
+    public static DealResult restore(int dealIndex, Solitaire game, byte[] outcomes, int[] moves, double durationMs,
+                                     double timeToFirstWinMs) {
+        DealResult deal = new DealResult(dealIndex, game, outcomes.length);
+        deal.restored = true;
+        for (int i = 0; i < outcomes.length; i++) {
+            if (outcomes[i] == CANCELLED) {
+                deal.addCancelled(i, moves[i]);
+            }
+            else {
+                deal.addResult(i, outcomes[i] == WON ? moves[i] : -moves[i], outcomes[i] == UNKNOWN);
+            }
+        }
+        deal.startTime.set(0);
+        deal.endTime = (long) (durationMs * 1_000_000);
+        if (deal.getNumWins() > 0) {
+            deal.firstWinTime.set((long) (timeToFirstWinMs * 1_000_000));
+        }
+        deal.numFinished.set(outcomes.length);
+        deal.done.countDown();
+        return deal;
+    }
+
+    /**
+     * Starts the deal's clock if it has not been started yet.
+     * Called by every thread as it starts, so the time taken begins when the first thread starts.
+     */
+    public void start() {
+        startTime.compareAndSet(NOT_STARTED, System.nanoTime());
+    }
+
+    /**
+     * Records the result of a thread.
+     * @param threadIndex the index of the thread
+     * @param result the number of moves made. + if the game was solved
+     * @param unknown true if the solver gave up before deciding the game
+     */
+    public void addResult(int threadIndex, int result, boolean unknown) {
+        moves[threadIndex] = Math.abs(result);
+        if (result > 0) {
+            firstWinTime.compareAndSet(NOT_STARTED, System.nanoTime());
+            outcomes[threadIndex] = WON;
+            numWins.getAndIncrement();
+        }
+        else if (unknown) {
+            outcomes[threadIndex] = UNKNOWN;
+            numUnknown.getAndIncrement();
+        }
+        else {
+            outcomes[threadIndex] = LOST;
+        }
+    }
+
+    /**
+     * Records a thread that was stopped, or never started, because the deal was cancelled.
+     * @param threadIndex the index of the thread
+     * @param movesMade the number of moves made before it stopped
+     */
+    public void addCancelled(int threadIndex, int movesMade) {
+        moves[threadIndex] = movesMade;
+        outcomes[threadIndex] = CANCELLED;
+        numCancelled.getAndIncrement();
+    }
+
+    /**
+     * Asks every thread still solving the deal to stop. The solvers poll this between moves and simulations.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Marks a thread as finished. The deal is done once every thread has finished.
+     */
+    public void finishThread() {
+        if (numFinished.incrementAndGet() == numThreads) {
+            endTime = System.nanoTime();
+            done.countDown();
+        }
+    }
+
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    /**
+     * Waits until every thread solving the deal has finished.
+     */
+    public void awaitDone() {
+        try {
+            done.await();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the time from the first thread starting to the last thread finishing, rounded to the millisecond.
+     * @return the time taken in milliseconds
+     */
+    public double getDurationMs() {
+        return Math.round((float) (endTime - startTime.get()) / 1_000_000);
+    }
+
+    /**
+     * Returns the time from the first thread starting to the first win, rounded to the millisecond.
+     * @return the time to the first win in milliseconds, or the time taken if no thread won
+     */
+    public double getTimeToFirstWinMs() {
+        long firstWin = firstWinTime.get();
+        if (firstWin == NOT_STARTED) {
+            return getDurationMs();
+        }
+        return Math.round((float) (firstWin - startTime.get()) / 1_000_000);
+    }
+
+    /**
+     * Returns whether the deal was rebuilt from a record of an earlier run rather than solved.
+     * @return true if the deal was restored
+     */
+    public boolean isRestored() {
+        return restored;
+    }
+
+    public int getDealIndex() {
+        return dealIndex;
+    }
+
+    public Solitaire getGame() {
+        return game;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    public int getNumWins() {
+        return numWins.get();
+    }
+
+    public int getNumUnknown() {
+        return numUnknown.get();
+    }
+
+    public int getNumCancelled() {
+        return numCancelled.get();
+    }
+
+    /**
+     * Returns the outcome of a thread. Only valid once the deal is done.
+     * @param threadIndex the index of the thread
+     * @return LOST, WON, UNKNOWN or CANCELLED
+     */
+    public byte getOutcome(int threadIndex) {
+        return outcomes[threadIndex];
+    }
+
+    /**
+     * Returns the number of moves a thread made. Only valid once the deal is done.
+     * @param threadIndex the index of the thread
+     * @return the number of moves made
+     */
+    public int getMoves(int threadIndex) {
+        return moves[threadIndex];
+    }
+}
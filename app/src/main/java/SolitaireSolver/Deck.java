@@ -1,36 +1,78 @@
 package SolitaireSolver;
 
-import java.util.Collections;
-import java.util.Stack;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Deck class representing a standard deck of playing cards.
  * The deck is initialized with 52 cards, shuffled, and can be accessed as a stack.
  */
 public class Deck {
-    public Stack<Card> deck;
+    public CardStack deck;
 
     /**
      * Constructor for Deck.
      */
     public Deck() {
-        deck = new Stack<>();
+        this((RandomGenerator) null);
+    }
+
+    /**
+     * Constructor for Deck.
+     * Shuffles with the given generator, so the same seed always deals the same game.
+     * @param random the generator to shuffle with, or null for an unseeded shuffle
+     */
+    public Deck(RandomGenerator random) {
+        deck = new CardStack(52);
         char[] SUITS = {'C', 'D', 'H', 'S'};
         int MAX_RANK = 13;
 
         for (char suit : SUITS) {
             for (int rank = 1; rank <= MAX_RANK; rank++) {
-                deck.push(new Card(rank, suit));
+                deck.push(Card.getCard(rank, suit));
+            }
+        }
+        this.shuffleDeck(random);
+    }
+
+    /**
+     * Constructor for Deck.
+     * Builds the deck in the given order, without shuffling, so a stored deal can be played again.
+     * @param cardIds the id of each card, from the bottom of the deck to the top
+     */
+    public Deck(byte[] cardIds) {
+        if (cardIds.length != 52) {
+            throw new IllegalArgumentException("A deck needs 52 cards, " + cardIds.length + " were given.");
+        }
+        deck = new CardStack(52);
+        long seen = 0;
+        for (byte id : cardIds) {
+            if (id < 0 || id >= 52 || (seen & (1L << id)) != 0) {
+                throw new IllegalArgumentException("Card ids must be 0-51 with no repeats, found " + id + ".");
             }
+            seen |= 1L << id;
+            deck.push(Card.getCard(id));
+        }
+    }
+
+    /**
+     * Returns the id of each card, from the bottom of the deck to the top.
+     * Building a Deck from the ids deals the same game.
+     * @return the card ids
+     */
+    public byte[] toCardIds() {
+        byte[] cardIds = new byte[deck.size()];
+        for (int i = 0; i < cardIds.length; i++) {
+            cardIds[i] = (byte) deck.get(i).getId();
         }
-        this.shuffleDeck();
+        return cardIds;
     }
 
-    private void shuffleDeck() {
-        Collections.shuffle(deck);
+    private void shuffleDeck(RandomGenerator random) {
+        deck.shuffle(random == null ? ThreadLocalRandom.current() : random);
     }
 
-    public Stack<Card> getDeck() {
+    public CardStack getDeck() {
         return deck;
     }
 }
@@ -0,0 +1,171 @@
+package SolitaireSolver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * ExactSolver class searching every move sequence from a game to prove whether it can be won.
+ * The search is depth-first over the same moves the other solvers use, trying moves with the highest
+ * heuristic value and priority first. States already searched are skipped using a bounded transposition
+ * table keyed by the state hash, and states DeadEnds proves lost are not searched further. A node or time
+ * limit, or the deal being cancelled, stops the search early, in which case the result is unknown.
+ */
+public class ExactSolver {
+    public enum Result { SOLVABLE, UNSOLVABLE, UNKNOWN }
+
+    private final long nodeLimit;
+    private final long timeLimitNanos;
+    private final long[] table;
+    private final int tableMask;
+
+    private final ArrayList<MoveBuffer> buffers = new ArrayList<>();
+    private int[] nextMove = new int[64];
+    private final MoveJournal journal = new MoveJournal();
+    private final long[] stuck = new long[DeadEnds.SCRATCH_SIZE];
+    private long nodes;
+    private int solutionLength;
+
+    /**
+     * Constructor for ExactSolver.
+     * @param nodeLimit the most moves to make before giving up
+     * @param timeLimitMs the most time to search for before giving up, in milliseconds
+     * @param tableBits log2 of the number of transposition table entries
+     */
+    public ExactSolver(long nodeLimit, long timeLimitMs, int tableBits) {
+        this.nodeLimit = nodeLimit;
+        this.timeLimitNanos = timeLimitMs * 1_000_000;
+        this.table = new long[1 << tableBits];
+        this.tableMask = table.length - 1;
+    }
+
+    /**
+     * Searches the game for a win. The game is returned to its starting state before this returns.
+     * @param game the game to solve
+     * @return whether the game was proven solvable, proven unsolvable, or a limit was reached first
+     */
+    public Result solve(Solitaire game) {
+        return search(game, journal, false);
+    }
+
+    /**
+     * Searches the game for a win, leaving the winning moves made if one is found.
+     * Otherwise the game is returned to its starting state.
+     * @param game the game to solve
+     * @param journal the journal the winning moves are recorded in, so the caller can rewind them
+     * @return whether the game was proven solvable, proven unsolvable, or a limit was reached first
+     */
+    public Result solve(Solitaire game, MoveJournal journal) {
+        return search(game, journal, true);
+    }
+
+    private Result search(Solitaire game, MoveJournal journal, boolean keepWin) {
+        nodes = 0;
+        solutionLength = 0;
+        Arrays.fill(table, 0);
+        if (isWon(game)) {
+            return Result.SOLVABLE;
+        }
+        long deadline = System.nanoTime() + timeLimitNanos;
+
+        int mark = journal.size();
+        int depth = 0;
+        visit(game);
+        expand(game, depth);
+
+        while (depth >= 0) {
+            if (nodes >= nodeLimit || ((nodes & 1023) == 0 && (System.nanoTime() > deadline || Run.isCancelled()))) {
+                journal.rewind(game, mark);
+                return Result.UNKNOWN;
+            }
+
+            MoveBuffer moves = buffers.get(depth);
+            if (nextMove[depth] == moves.size()) {
+                depth--;
+                journal.rewind(game, mark + Math.max(depth, 0));
+                continue;
+            } // Every move from this state has been searched
+
+            journal.makeMove(game, moves.get(nextMove[depth]++));
+            nodes++;
+            if (isWon(game)) {
+                solutionLength = journal.size() - mark;
+                if (!keepWin) {
+                    journal.rewind(game, mark);
+                }
+                return Result.SOLVABLE;
+            }
+            if (!visit(game) || DeadEnds.isDeadEnd(game, stuck)) {
+                journal.rewind(game, mark + depth);
+                continue;
+            } // State has already been searched, or cannot be won
+
+            depth++;
+            expand(game, depth);
+        }
+        journal.rewind(game, mark);
+        return Result.UNSOLVABLE;
+    }
+
+    /**
+     * Returns the number of moves in the win found by the last search.
+     * @return the solution length, or 0 if the last search did not find a win
+     */
+    public int getSolutionLength() {
+        return solutionLength;
+    }
+
+    /**
+     * Returns the number of moves made by the last search.
+     * @return the number of nodes searched
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    private void expand(Solitaire game, int depth) {
+        if (depth == buffers.size()) {
+            buffers.add(new MoveBuffer());
+        }
+        if (depth == nextMove.length) {
+            nextMove = Arrays.copyOf(nextMove, depth * 2);
+        }
+        MoveBuffer moves = buffers.get(depth);
+        game.generateMoves(moves);
+        moves.sortByHeuristic();
+        nextMove[depth] = 0;
+    }
+
+    /**
+     * Returns the key a state is searched under.
+     * The state hash only records each pile card's depth, so a pile whose face down card was turned up, with the
+     * same cards put back on it, hashes the same as before. The face down cards are mixed in so the two are
+     * searched separately. The stock position decides which stock cards can be played, so it is part of the key.
+     * @param game the game
+     * @return the key, never 0
+     */
+    static long getSearchKey(Solitaire game) {
+        long key = game.getStateHash() ^ (game.getStock().getCardIndex() * 0x9E3779B97F4A7C15L) ^
+                Zobrist.mixPile(game.getHiddenCardMask());
+        return key == 0 ? 1 : key;
+    }
+
+    /**
+     * Marks the current state as searched.
+     * Entries are overwritten on collision, which can only cause a state to be searched again.
+     * @param game the game
+     * @return true if the state had not been searched yet
+     */
+    private boolean visit(Solitaire game) {
+        long key = getSearchKey(game);
+        int slot = (int) (key ^ (key >>> 32)) & tableMask;
+        if (table[slot] == key) {
+            return false;
+        }
+        table[slot] = key;
+        return true;
+    }
+
+    private static boolean isWon(Solitaire game) {
+        return game.getFoundation().checkWin() || game.checkWin();
+    }
+}
@@ -0,0 +1,7 @@
+package SolitaireSolver.Exceptions;
+
+public class InvalidOptionException extends RuntimeException {
+    public InvalidOptionException(String message) {
+        super(message);
+    }
+}
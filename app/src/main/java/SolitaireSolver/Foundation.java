@@ -106,6 +106,19 @@ public class Foundation {
         return true;
     }
 
+    /**
+     * Takes a card back off the foundation. Used when a move to the foundation is undone.
+     * @param card the card at the top of its suit's foundation pile
+     */
+    public void fromFoundation(Card card) {
+        switch (card.getSuit()) {
+            case 'C' -> clubs -= 1;
+            case 'S' -> spades -= 1;
+            case 'H' -> hearts -= 1;
+            case 'D' -> diamonds -= 1;
+        }
+    }
+
     public int getSpades() {
         return spades;
     }
@@ -218,6 +231,36 @@ public class Foundation {
         return getSpadeCard() + getHeartCard() + getClubCard() + getDiamondCard();
     }
 
+    /**
+     * Returns the cards in the foundation. Cards are never moved back off the foundation, except to undo a move.
+     * @return a bitmask with bit i set if the card with id i is in the foundation
+     */
+    public long getCards() {
+        return (1L << clubs) - 1 | ((1L << diamonds) - 1) << 13 | ((1L << hearts) - 1) << 26 |
+                ((1L << spades) - 1) << 39;
+    }
+
+    /**
+     * Returns the cards that can be moved to the foundation next, one per suit that is not complete.
+     * @return a bitmask with bit i set if the card with id i is the next card of its suit
+     */
+    public long getNextCards() {
+        long nextCards = 0;
+        if (clubs < 13) {
+            nextCards |= 1L << clubs;
+        }
+        if (diamonds < 13) {
+            nextCards |= 1L << (13 + diamonds);
+        }
+        if (hearts < 13) {
+            nextCards |= 1L << (26 + hearts);
+        }
+        if (spades < 13) {
+            nextCards |= 1L << (39 + spades);
+        }
+        return nextCards;
+    } // Card ids are suit * 13 + rank - 1, in suit order C, D, H, S
+
     public boolean checkWin() {
         return spades == 13 && hearts == 13 && clubs == 13 && diamonds == 13;
     }
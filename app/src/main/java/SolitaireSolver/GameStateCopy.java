@@ -10,6 +10,7 @@ import java.util.ArrayList;
 public class GameStateCopy {
     private ArrayList<Card> stockState;
     private int stockIndex;
+    private byte[] locations;
     private ArrayList<Integer> foundationState;
     private ArrayList<ArrayList<Card>> pileHiddenStates, pileBuildStates;
 
@@ -21,8 +22,8 @@ public class GameStateCopy {
         this.pileHiddenStates = new ArrayList<>();
         this.pileBuildStates = new ArrayList<>();
         for (Pile pile : game.getPiles()) {
-            pileHiddenStates.add(new ArrayList<>(pile.getHiddenCards()));
-            pileBuildStates.add(new ArrayList<>(pile.getBuildStack()));
+            pileHiddenStates.add(pile.getHiddenCards().toList());
+            pileBuildStates.add(pile.getBuildStack().toList());
         } // Deep copy of piles
 
         this.stockState = new ArrayList<>(game.getStock().getStock());
@@ -35,6 +36,8 @@ public class GameStateCopy {
         this.foundationState.add(game.getFoundation().getDiamonds());
         this.foundationState.add(game.getFoundation().getHearts());
         // Deep copy of foundation
+
+        this.locations = game.getLocations().clone();
     }
 
     /**
@@ -45,12 +48,10 @@ public class GameStateCopy {
         for (int i = 0; i < game.getPiles().length; i++) {
             game.getPiles()[i].setHiddenCards(pileHiddenStates.get(i));
             game.getPiles()[i].setBuildStack(pileBuildStates.get(i));
-            game.getPiles()[i].updateCardLocations(i);
         } // Restore piles
 
         game.getStock().setStock(stockState);
         game.getStock().setCardIndex(stockIndex);
-        game.getStock().updateCardLocations();
         // Restore stock
 
         game.getFoundation().setClubs(foundationState.get(0));
@@ -58,5 +59,10 @@ public class GameStateCopy {
         game.getFoundation().setDiamonds(foundationState.get(2));
         game.getFoundation().setHearts(foundationState.get(3));
         // Restore foundation
+
+        System.arraycopy(locations, 0, game.getLocations(), 0, locations.length);
+        // Restore card locations
+        game.rehash();
+        game.rebuildCardMasks();
     }
 }
@@ -0,0 +1,135 @@
+package SolitaireSolver;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Histogram class counting non-negative values in log-spaced buckets, so any number of values is summarised in
+ * constant memory.
+ * Values below 2 * SUB_BUCKETS each have their own bucket and are exact. Above that, every power of two is split
+ * into SUB_BUCKETS buckets, so a value is reported to within 1 / SUB_BUCKETS of itself. The count, total, min
+ * and max are kept exactly.
+ * A histogram is not thread safe. Each thread records into its own and they are merged with add.
+ */
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int NUM_BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[NUM_BUCKETS];
+    private long count;
+    private long total;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /**
+     * Records a value.
+     * @param value the value, values below 0 are recorded as 0
+     */
+    public void record(long value) {
+        value = Math.max(value, 0);
+        counts[bucketOf(value)]++;
+        count++;
+        total += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds every value recorded in another histogram to this one.
+     * @param other the histogram to add
+     */
+    public void add(Histogram other) {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        total += other.total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the value at a rank, counting from the smallest value recorded.
+     * @param rank the rank, from 1 to getCount()
+     * @return the value, exact below 2 * SUB_BUCKETS, otherwise the lowest value in its bucket
+     */
+    public long getValueAtRank(long rank) {
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(Math.max(lowestValueOf(i), min), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the value below which the given percentage of the values fall, by the nearest-rank method.
+     * @param percentile the percentage, between 0 and 100
+     * @return the value
+     */
+    public long getPercentile(double percentile) {
+        return getValueAtRank(Math.max(1, (long) Math.ceil(percentile / 100.0 * count)));
+    }
+
+    /**
+     * Returns the averages of the values recorded, keyed the same way as before values were bucketed:
+     * "Mean", "Median", "P90", "P99", "Mode", "Mode Count", "Min", "Max" and "Total".
+     * @return the averages, or an empty map if no values have been recorded
+     */
+    public Map<String, Double> getAverages() {
+        Map<String, Double> averages = new HashMap<>();
+        if (count == 0) {
+            return averages;
+        }
+
+        int modeBucket = 0;
+        for (int i = 1; i < NUM_BUCKETS; i++) {
+            if (counts[i] > counts[modeBucket]) {
+                modeBucket = i;
+            }
+        }
+        averages.put("Mode", (double) Math.min(Math.max(lowestValueOf(modeBucket), min), max));
+        averages.put("Mode Count", (double) counts[modeBucket]);
+        averages.put("Total", (double) total);
+
+        averages.put("Mean", Math.round((double) total / count * 100.0) / 100.0);
+        averages.put("Max", (double) max);
+        averages.put("Min", (double) min);
+
+        double median;
+        if (count % 2 == 0) {
+            median = (getValueAtRank(count / 2) + getValueAtRank(count / 2 + 1)) / 2.0;
+        }
+        else {
+            median = getValueAtRank(count / 2 + 1);
+        }
+        averages.put("Median", Math.round(median * 100.0) / 100.0);
+        averages.put("P90", (double) getPercentile(90));
+        averages.put("P99", (double) getPercentile(99));
+        return averages;
+    }
+
+    private static int bucketOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        // Number of low bits dropped, at least 1 as value >= 2 * SUB_BUCKETS
+        return (exponent + 1) * SUB_BUCKETS + (int) (value >>> exponent) - SUB_BUCKETS;
+    }
+
+    private static long lowestValueOf(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS - 1;
+        return (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << exponent;
+    }
+}
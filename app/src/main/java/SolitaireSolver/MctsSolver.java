@@ -0,0 +1,230 @@
+package SolitaireSolver;
+
+import java.util.ArrayList;
+import java.util.random.RandomGenerator;
+
+/**
+ * MctsSolver class choosing each move with Monte Carlo Tree Search, using UCB1 to decide which line to search next.
+ * Each iteration descends the tree from the current state, choosing the child with the best UCB1 value, until it
+ * reaches a state with an untried move. The move is added to the tree and the rest of the game is simulated with
+ * the same policy the Monte Carlo solver uses. The share of cards face up at the end is added to every state on
+ * the path.
+ * Moves are tried in order of heuristic value and priority. After every decision the subtree under the chosen move
+ * is kept as the new root, so its simulations count towards the next decision as well.
+ */
+public class MctsSolver {
+
+    /**
+     * Node class holding the moves from one state and the simulation results of the iterations that passed it.
+     */
+    private static class Node {
+        private final int[] moves;
+        // Packed moves, highest heuristic value and priority first
+        private final Node[] children;
+        private final double reward;
+        // Share of cards face up, used as the result of iterations ending at a state with no moves
+        private int numExpanded;
+        private int visits;
+        private double totalReward;
+
+        private Node(MoveBuffer buffer, double reward) {
+            this.moves = new int[buffer.size()];
+            for (int i = 0; i < moves.length; i++) {
+                moves[i] = buffer.get(i);
+            }
+            this.children = new Node[moves.length];
+            this.reward = reward;
+        }
+    }
+
+    private final int numSimulations;
+    private final double exploration;
+    private final RandomGenerator random;
+    private final MoveBuffer buffer = new MoveBuffer();
+    private final MoveJournal journal = new MoveJournal();
+    private final MoveUndo undo = new MoveUndo();
+    private final ArrayList<Node> path = new ArrayList<>();
+    private long rollouts;
+    private int winLength;
+
+    /**
+     * Constructor for MctsSolver.
+     * @param numSimulations the number of iterations per possible move to run for each decision, so each decision
+     *                       runs as many simulations as the Monte Carlo solver would
+     * @param exploration the UCB1 exploration constant
+     * @param random the generator used by the simulations
+     */
+    public MctsSolver(int numSimulations, double exploration, RandomGenerator random) {
+        this.numSimulations = numSimulations;
+        this.exploration = exploration;
+        this.random = random;
+    }
+
+    /**
+     * Plays the game, choosing each move by searching the tree.
+     * Returns as soon as a simulation wins, as that simulation's moves win the game.
+     * @param game the initial game state
+     * @return the number of moves made. - 1 if the game is unsolvable, + if the game is solvable.
+     */
+    public int solve(Solitaire game) {
+        RepetitionTable gameStates = new RepetitionTable();
+        gameStates.add(game.getStateHash());
+        Node root = newNode(game);
+        int movesMade = 0;
+        int endgameCards = Run.ENDGAME_THRESHOLD;
+
+        while (true) {
+            if (Run.isCancelled() || root.moves.length == 0) {
+                return -movesMade;
+            }
+            if (Run.getEndgameCards(game) < endgameCards) {
+                endgameCards = Run.getEndgameCards(game);
+                int endgame = Run.solveEndgame(game, journal);
+                if (endgame != 0) {
+                    return endgame > 0 ? movesMade + endgame : -movesMade;
+                }
+            } // Tried again each time fewer cards are unseen, as the search may not have finished
+
+            int iterations = numSimulations * root.moves.length;
+            for (int i = 0; i < iterations; i++) {
+                if (Run.isCancelled()) {
+                    return -movesMade;
+                }
+                if (iterate(game, root)) {
+                    return movesMade + winLength;
+                }
+            }
+
+            int best = getMostVisitedChild(root);
+            game.makeMove(root.moves[best], undo);
+            movesMade++;
+            root = root.children[best];
+            // Keep the chosen move's subtree, dropping the rest of the tree
+
+            long currentState = game.getStateHash();
+            if (gameStates.getCount(currentState) > Run.MAX_REPEATS || DeadEnds.isDeadEnd(game)) {
+                return -movesMade;
+            }
+            if (isWon(game)) {
+                return movesMade;
+            } else {
+                gameStates.add(currentState);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of simulations run by the last solve.
+     * @return the number of simulations
+     */
+    public long getRollouts() {
+        return rollouts;
+    }
+
+    /**
+     * Runs one iteration: selects a path down the tree, adds one state to it, simulates the rest of the game from
+     * there and adds the result to every state on the path. The game is returned to the root's state.
+     * @param game the game, in the root's state
+     * @param root the root of the tree
+     * @return true if the game was won, in which case winLength holds the number of moves in the win
+     */
+    private boolean iterate(Solitaire game, Node root) {
+        int mark = journal.size();
+        path.clear();
+        path.add(root);
+        Node node = root;
+        double reward;
+
+        while (true) {
+            if (node.moves.length == 0) {
+                reward = node.reward;
+                break;
+            }
+            if (node.numExpanded < node.moves.length) {
+                journal.makeMove(game, node.moves[node.numExpanded]);
+                if (isWon(game)) {
+                    winLength = journal.size() - mark;
+                    journal.rewind(game, mark);
+                    return true;
+                }
+                Node child = newNode(game);
+                node.children[node.numExpanded++] = child;
+                path.add(child);
+                if (child.moves.length == 0) {
+                    reward = child.reward;
+                    break;
+                }
+
+                int gameSim = Run.greedyHeuristicPrioritySolitaireSolverWithRandom(game, journal, random);
+                rollouts++;
+                if (gameSim == 52) {
+                    winLength = journal.size() - mark;
+                    journal.rewind(game, mark);
+                    return true;
+                }
+                reward = gameSim / 52.0;
+                break;
+            }
+
+            int best = selectChild(node);
+            journal.makeMove(game, node.moves[best]);
+            node = node.children[best];
+            path.add(node);
+        }
+
+        for (Node visited : path) {
+            visited.visits++;
+            visited.totalReward += reward;
+        }
+        journal.rewind(game, mark);
+        return false;
+    }
+
+    /**
+     * Returns the child with the highest UCB1 value. Every child must have been expanded.
+     * @param node the node to choose a child of
+     * @return the index of the child
+     */
+    private int selectChild(Node node) {
+        double logVisits = Math.log(node.visits);
+        int best = 0;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < node.children.length; i++) {
+            Node child = node.children[i];
+            double value = child.totalReward / child.visits + exploration * Math.sqrt(logVisits / child.visits);
+            if (value > bestValue) {
+                best = i;
+                bestValue = value;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the child searched the most, breaking ties by the average result.
+     * @param node the node to choose a child of
+     * @return the index of the child
+     */
+    private static int getMostVisitedChild(Node node) {
+        int best = 0;
+        for (int i = 1; i < node.numExpanded; i++) {
+            Node child = node.children[i];
+            Node bestChild = node.children[best];
+            if (child.visits > bestChild.visits || (child.visits == bestChild.visits &&
+                    child.totalReward > bestChild.totalReward)) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private Node newNode(Solitaire game) {
+        game.generateMoves(buffer);
+        buffer.sortByHeuristic();
+        return new Node(buffer, (52 - game.getHiddenCardsCount()) / 52.0);
+    }
+
+    private static boolean isWon(Solitaire game) {
+        return game.getFoundation().checkWin() || game.checkWin();
+    }
+}
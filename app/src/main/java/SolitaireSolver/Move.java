@@ -5,6 +5,8 @@ package SolitaireSolver;
  */
 public class Move {
     Card card;
+    int src;
+    // Location the card is moved from. 7: Stock, 0-6: Piles
     Pile dst;
     int heuristic;
     int priority;
@@ -15,9 +17,11 @@ public class Move {
      * Constructor for Move.
      * Represents a move of a card to the Foundation.
      * @param card the card to be moved
+     * @param src the location of the card
      */
-    public Move(Card card) {
+    public Move(Card card, int src) {
         this.card = card;
+        this.src = src;
         this.heuristic = 0;
         this.priority = 0;
         this.monteCarloScore = 0;
@@ -27,10 +31,12 @@ public class Move {
      * Constructor for Move.
      * Represents a move of a card to a Pile.
      * @param card the card to be moved
+     * @param src the location of the card
      * @param dst the destination pile
      */
-    public Move(Card card, Pile dst) {
+    public Move(Card card, int src, Pile dst) {
         this.card = card;
+        this.src = src;
         this.dst = dst;
         this.heuristic = 0;
         this.priority = 0;
@@ -38,103 +44,121 @@ public class Move {
 
     /**
      * Determines the specific type of move based on the current game state.
+     * @param game the game the move is made in
+     */
+    public void determineMoveType(Solitaire game) {
+        this.setMoveType(getMoveType(card, src, dst, game.getPiles()));
+        this.determineHeuristic(game);
+    }
+
+    /**
+     * Determines the type of moving a card to a destination.
+     * @param card the card to be moved
+     * @param src the location of the card
+     * @param dst the destination pile, or null for the foundation
      * @param piles the array of piles in the game
+     * @return the move type
      */
-    public void determineMoveType(Pile[] piles) {
+    static int getMoveType(Card card, int src, Pile dst, Pile[] piles) {
         if (dst == null) {
-            this.setMoveType(0);
+            return 0;
             // Stock to Foundation / Pile to Foundation
-        } else if (card.getLocation() == 7) {
-            this.setMoveType(1);
+        } else if (src == 7) {
+            return 1;
             // Stock to Pile
-        } else if (piles[card.getLocation()].getBottomCard() == card) {
-            this.setMoveType(2);
+        } else if (piles[src].getBottomCard() == card) {
+            return 2;
             // Pile to Pile: Move entire pile
         } else {
-            this.setMoveType(3);
+            return 3;
             // Pile to Pile: Move partial pile
         }
-        this.determineHeuristic(piles);
     }
 
     /**
      * Determines the heuristic value of the move based on the current game state.
-     * @param piles the array of piles in the game
+     * @param game the game the move is made in
+     */
+    private void determineHeuristic(Solitaire game) {
+        int scores = evaluate(card, src, moveType, dst, game);
+        this.updateHeuristic(PackedMove.getHeuristic(scores));
+        this.setPriority(PackedMove.getPriority(scores));
+    }
+
+    /**
+     * Determines the heuristic value and priority of a move based on the current game state.
+     * Does not allocate, so it can be used by the packed move generator. Hidden and top cards are looked up in
+     * the game's card bitmasks, so no pile is scanned.
+     * @param card the card to be moved
+     * @param src the location of the card
+     * @param moveType the type of the move
+     * @param dst the destination pile, or null for the foundation
+     * @param game the game the move is made in
+     * @return the heuristic and priority, packed as in PackedMove
      */
-    private void determineHeuristic(Pile[] piles) {
+    static int evaluate(Card card, int src, int moveType, Pile dst, Solitaire game) {
+        Pile[] piles = game.getPiles();
+        int heuristic = 0;
+        int priority = 0;
         switch (moveType) {
             case 0:
-                for (Pile pile : piles) {
-                    for (Card card : pile.getHiddenCards()) {
-                        if (card.isBlack() != this.getCard().isBlack()) {
-                            if (card.getRank() == this.getCard().getRank() - 1) {
-                                this.updateHeuristic(-5);
-                                break;
-                            }
-                        }
-                    }
-                } // Stock to Foundation move may block a card of an opposite colour and rank-1 from being moved
-                if (card.getLocation() != 7) {
-                    if ((!piles[card.getLocation()].getHiddenCards().isEmpty()) &&
-                            (piles[card.getLocation()].getBuildStack().size() == 1)) {
-                        this.updateHeuristic(10);
+                long blocked = game.getHiddenCardMask() & Card.getRankColourMask(card.getRank() - 1, !card.isBlack());
+                int blockedPiles = 0;
+                for (; blocked != 0; blocked &= blocked - 1) {
+                    blockedPiles |= 1 << game.getLocation(Card.getCard(Long.numberOfTrailingZeros(blocked)));
+                }
+                heuristic -= 5 * Integer.bitCount(blockedPiles);
+                // Stock to Foundation move may block a card of an opposite colour and rank-1 from being moved,
+                // counted once per pile holding one
+                if (src != 7) {
+                    if ((!piles[src].getHiddenCards().isEmpty()) &&
+                            (piles[src].getBuildStack().size() == 1)) {
+                        heuristic += 10;
                     } // Pile to foundation move will reveal a hidden card
                 }
                 if (card.getRank() == 1) {
-                    this.updateHeuristic(10);
+                    heuristic += 10;
                     // Aces should always be moved to foundation
                 }
-                this.updateHeuristic(10);
+                heuristic += 10;
                 break;
             case 1:
-                this.updateHeuristic(5);
-                this.setPriority(1);
-                if (card.getRank() == 13) {
-                    for (Pile pile : piles) {
-                        for (Card card : pile.getHiddenCards()) {
-                            if (card.getRank() == 12) {
-                                if (card.isBlack() != this.getCard().isBlack()) {
-                                    this.setPriority(-1);
-                                }
-                            }
-                        }
-                    }
-                } // Stock to Pile move
+                heuristic += 5;
+                priority = 1;
+                if (card.getRank() == 13 &&
+                        (game.getHiddenCardMask() & Card.getRankColourMask(12, !card.isBlack())) != 0) {
+                    priority = -1;
+                } // Stock to Pile move: a King is played while a Queen it could take is still hidden
                 break;
             case 2:
-                if (!piles[card.getLocation()].getHiddenCards().isEmpty()) {
-                    this.updateHeuristic(10);
-                    this.setPriority(1 + piles[card.getLocation()].getHiddenCards().size());
+                if (!piles[src].getHiddenCards().isEmpty()) {
+                    heuristic += 10;
+                    priority = 1 + piles[src].getHiddenCards().size();
                 } // Full build stack move will reveal a hidden card
                 else {
-                    this.updateHeuristic(5);
-                    this.setPriority(1);
+                    heuristic += 5;
+                    priority = 1;
                 } // Full build stack move will create an empty pile
 
-                if ((card.getRank() == 13) && (dst.getPile().isEmpty())) {
-                    if (piles[card.getLocation()].getHiddenCards().isEmpty()) {
-                        this.setHeuristic(0);
+                if ((card.getRank() == 13) && (dst.isEmpty())) {
+                    if (piles[src].getHiddenCards().isEmpty()) {
+                        heuristic = 0;
                     } // Moving a king to empty pile creating another empty pile achieves nothing
                     else {
-                        this.updateHeuristic(5);
+                        heuristic += 5;
                     } // Moving a King to an empty pile
                 }
                 break;
             case 3:
-                Pile srcPile = piles[card.getLocation()];
+                Pile srcPile = piles[src];
                 Card nextCard = srcPile.getCardAtIndex(srcPile.getCardIndex(card) - 1);
-                for (Pile pile : piles) {
-                    if (!pile.getPile().isEmpty()) {
-                        if (pile.getTopCard().getRank() == nextCard.getRank() + 1) {
-                            if (pile.getTopCard().isBlack() != nextCard.isBlack()) {
-                                this.updateHeuristic(5);
-                                break;
-                            } // Partial build stack move could reveal another card on the next turn.
-                        }
-                    }
-                    this.setHeuristic(0);
-                } // Partial build stack move may not reveal a hidden card so has no benefit
+                long acceptingCards = Card.getRankColourMask(nextCard.getRank() + 1, !nextCard.isBlack());
+                if ((game.getTopCardMask() & acceptingCards) != 0) {
+                    heuristic += 5;
+                } // Partial build stack move could reveal another card on the next turn.
+                // Otherwise it may not reveal a hidden card so has no benefit
         }
+        return PackedMove.pack(0, 0, 0, 0, heuristic, priority);
     }
 
     @Override
@@ -151,6 +175,10 @@ public class Move {
         return card;
     }
 
+    public int getSrc() {
+        return src;
+    }
+
     public int getMoveType() {
         return moveType;
     }
@@ -0,0 +1,79 @@
+package SolitaireSolver;
+
+import java.util.Arrays;
+
+/**
+ * MoveBuffer class holding the packed moves generated for a game state.
+ * The buffer is owned by the caller and reused for every move generation, so it only allocates when it has
+ * to grow past the most moves it has held so far.
+ */
+public class MoveBuffer {
+    private int[] moves;
+    private int size;
+
+    /**
+     * Constructor for MoveBuffer.
+     */
+    public MoveBuffer() {
+        moves = new int[64];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Sorts the moves by heuristic value, then priority, highest first.
+     * Moves that tie keep the order they were generated in.
+     */
+    public void sortByHeuristic() {
+        for (int i = 1; i < size; i++) {
+            int move = moves[i];
+            int score = move >>> 16;
+            int j = i - 1;
+            while (j >= 0 && (moves[j] >>> 16) < score) {
+                moves[j + 1] = moves[j];
+                j--;
+            }
+            moves[j + 1] = move;
+        }
+    }
+
+    /**
+     * Returns the best move based on the heuristic value and priority.
+     * Matches Solitaire.getBestMoveWithPriority: the first move with the highest heuristic, then priority.
+     * @return the best packed move
+     */
+    public int getBestMoveWithPriority() {
+        int bestMove = moves[0];
+        for (int i = 1; i < size; i++) {
+            int move = moves[i];
+            int heuristic = PackedMove.getHeuristic(move);
+            int bestHeuristic = PackedMove.getHeuristic(bestMove);
+            if (heuristic > bestHeuristic ||
+                    (heuristic == bestHeuristic && PackedMove.getPriority(move) > PackedMove.getPriority(bestMove))) {
+                bestMove = move;
+            }
+        }
+        return bestMove;
+    }
+}
@@ -0,0 +1,55 @@
+package SolitaireSolver;
+
+import java.util.ArrayList;
+
+/**
+ * MoveJournal class recording the moves made on a game so they can be rewound.
+ * Undo records are kept after being rewound and reused by later moves, so a simulation allocates nothing
+ * once the journal has grown to the longest game played.
+ */
+public class MoveJournal {
+    private final ArrayList<MoveUndo> records = new ArrayList<>();
+    private int size;
+
+    /**
+     * Makes a move on the game and records it in the journal.
+     * @param game the game to make the move on
+     * @param move the move to make
+     */
+    public void makeMove(Solitaire game, Move move) {
+        if (size == records.size()) {
+            records.add(new MoveUndo());
+        }
+        game.makeMove(move, records.get(size));
+        size++;
+    }
+
+    /**
+     * Makes a packed move on the game and records it in the journal.
+     * @param game the game to make the move on
+     * @param move the packed move to make
+     */
+    public void makeMove(Solitaire game, int move) {
+        if (size == records.size()) {
+            records.add(new MoveUndo());
+        }
+        game.makeMove(move, records.get(size));
+        size++;
+    }
+
+    /**
+     * Reverts moves, most recent first, until the journal is back to the given size.
+     * @param game the game the moves were made on
+     * @param mark the journal size to rewind to
+     */
+    public void rewind(Solitaire game, int mark) {
+        while (size > mark) {
+            size--;
+            game.unmakeMove(records.get(size));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+}
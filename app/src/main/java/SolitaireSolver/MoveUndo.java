@@ -0,0 +1,39 @@
+package SolitaireSolver;
+
+/**
+ * MoveUndo class recording what a single move changed in a game of Solitaire.
+ * Returned by Solitaire.makeMove and passed to Solitaire.unmakeMove to revert only the cards the move touched,
+ * instead of snapshotting the whole game with a GameStateCopy.
+ */
+public class MoveUndo {
+    int moveType;
+    Card card;
+    int src;
+    // Location the card came from. 7: Stock, 0-6: Piles
+    int dst;
+    // Pile the card was moved to, -1 for the foundation
+    int numCards;
+    // Number of build stack cards moved pile to pile
+    int stockIndex;
+    // Index the card was removed from in the stock
+    int prevCardIndex;
+    boolean revealed;
+    // Whether the move revealed a hidden card in the source pile
+    long prevStateHash;
+    long prevCardHash;
+    long prevSrcPileHash;
+    long prevDstPileHash;
+    // Hashes of the stock and foundation, and of the source and destination piles, before the move
+
+    public int getMoveType() {
+        return moveType;
+    }
+
+    public Card getCard() {
+        return card;
+    }
+
+    public boolean isRevealed() {
+        return revealed;
+    }
+}
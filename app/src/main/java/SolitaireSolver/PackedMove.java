@@ -0,0 +1,44 @@
+package SolitaireSolver;
+
+/**
+ * PackedMove class encoding a move in a single int, so moves can be generated without allocating.
+ * Layout, from the lowest bit:
+ * card id (6 bits), source location (4 bits), destination (4 bits), move type (2 bits),
+ * priority + 128 (8 bits), heuristic + 128 (8 bits).
+ */
+public final class PackedMove {
+    static final int FOUNDATION = 15;
+    // Destination of a move to the foundation
+
+    private PackedMove() {
+    }
+
+    public static int pack(int cardId, int src, int dst, int moveType, int heuristic, int priority) {
+        return cardId | (src << 6) | (dst << 10) | (moveType << 14) | ((priority + 128) << 16) |
+                ((heuristic + 128) << 24);
+    }
+
+    public static int getCardId(int move) {
+        return move & 0x3F;
+    }
+
+    public static int getSrc(int move) {
+        return (move >>> 6) & 0xF;
+    }
+
+    public static int getDst(int move) {
+        return (move >>> 10) & 0xF;
+    }
+
+    public static int getMoveType(int move) {
+        return (move >>> 14) & 0x3;
+    }
+
+    public static int getPriority(int move) {
+        return ((move >>> 16) & 0xFF) - 128;
+    }
+
+    public static int getHeuristic(int move) {
+        return (move >>> 24) - 128;
+    }
+}
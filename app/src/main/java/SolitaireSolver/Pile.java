@@ -5,39 +5,36 @@ import SolitaireSolver.Exceptions.InvalidColourException;
 import SolitaireSolver.Exceptions.InvalidRankException;
 
 import java.util.ArrayList;
-import java.util.Stack;
 
 /**
  * Pile class representing a pile of cards in the game of Solitaire.
  * Each pile contains hidden cards and a build stack.
  */
 public class Pile {
-    Stack<Card> hiddenCards;
-    Stack<Card> buildStack;
+    static final int MAX_HIDDEN_CARDS = 7;
+    // The last pile is dealt 7 cards face down before its top card is revealed
+    static final int MAX_BUILD_CARDS = 13;
+
+    CardStack hiddenCards;
+    CardStack buildStack;
 
     /**
      * Constructor for Pile.
      * Initializes the hidden cards and build stack as empty stacks.
      */
     public Pile() {
-        hiddenCards = new Stack<>();
-        buildStack = new Stack<>();
+        hiddenCards = new CardStack(MAX_HIDDEN_CARDS);
+        buildStack = new CardStack(MAX_BUILD_CARDS);
     }
 
     /**
-     * Deep copy constructor for Pile.
+     * Copy constructor for Pile.
+     * Cards are immutable and shared, so only the stacks are copied.
      * @param other the Pile to copy
      */
     public Pile(Pile other) {
-        this.hiddenCards = new Stack<>();
-        for (Card c : other.getHiddenCards()) {
-            this.hiddenCards.push(new Card(c));
-        }
-
-        this.buildStack = new Stack<>();
-        for (Card c : other.getBuildStack()) {
-            this.buildStack.push(new Card(c));
-        }
+        this.hiddenCards = new CardStack(other.getHiddenCards());
+        this.buildStack = new CardStack(other.getBuildStack());
     }
 
     public void dealCard(Card card) {
@@ -45,7 +42,7 @@ public class Pile {
     }
 
     public boolean addToBuildStack(Card card) {
-        if (buildStack.isEmpty() || (this.getPile().isEmpty() && card.getRank() == 13)) {
+        if (buildStack.isEmpty() || (this.isEmpty() && card.getRank() == 13)) {
             buildStack.push(card);
             return true;
         }
@@ -75,6 +72,22 @@ public class Pile {
         throw new EmptyStackException("hiddenCards is empty, cannot reveal card.");
     }
 
+    /**
+     * Turns the only build stack card back face down. Reverses revealCard when a move is undone.
+     */
+    public void hideTopCard() {
+        hiddenCards.push(buildStack.pop());
+    }
+
+    /**
+     * Puts a card back on top of the build stack without checking it, as it is being returned to where an
+     * undone move took it from.
+     * @param card the card to put back
+     */
+    public void restoreToBuildStack(Card card) {
+        buildStack.push(card);
+    }
+
     public boolean removeTopCard() {
         if (!buildStack.isEmpty()) {
             buildStack.pop();
@@ -110,27 +123,35 @@ public class Pile {
         if (buildStack.isEmpty()) {
             return null;
         }
-        return buildStack.getFirst();
+        return buildStack.get(0);
     }
 
     public Card getBuildCard(int index) {
         return buildStack.get(index);
     }
 
-    public Stack<Card> getBuildStack() {
+    public CardStack getBuildStack() {
         return buildStack;
     }
     public void setBuildStack(ArrayList<Card> cards) {
-        buildStack = new Stack<>();
-        buildStack.addAll(cards);
+        buildStack = new CardStack(MAX_BUILD_CARDS);
+        for (Card card : cards) {
+            buildStack.push(card);
+        }
     }
 
-    public Stack<Card> getHiddenCards() {
+    public CardStack getHiddenCards() {
         return hiddenCards;
     }
     public void setHiddenCards(ArrayList<Card> cards) {
-        hiddenCards = new Stack<>();
-        hiddenCards.addAll(cards);
+        hiddenCards = new CardStack(MAX_HIDDEN_CARDS);
+        for (Card card : cards) {
+            hiddenCards.push(card);
+        }
+    }
+
+    public boolean isEmpty() {
+        return hiddenCards.isEmpty() && buildStack.isEmpty();
     }
 
     public ArrayList<String> getPile() {
@@ -169,13 +190,4 @@ public class Pile {
         }
         return null;
     }
-
-    public void updateCardLocations(int location) {
-        for (Card card : hiddenCards) {
-            card.setLocation(location);
-        }
-        for (Card card : buildStack) {
-            card.setLocation(location);
-        }
-    }
 }
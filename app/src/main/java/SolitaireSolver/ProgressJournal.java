@@ -0,0 +1,198 @@
+package SolitaireSolver;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * ProgressJournal class recording every finished deal of a run in an append-only file, so an interrupted run can
+ * be resumed without solving its finished deals again.
+ * The first line describes the run's configuration. Each following line is one deal: its index, time taken,
+ * time to first win, the outcome of each thread (W, L, U or C) and the number of moves each thread made.
+ * Lines are written in batches and the file is synced after every batch, so at most one batch of deals is lost
+ * if the run is killed. A partly written last line is ignored and overwritten when the run is resumed.
+ */
+public class ProgressJournal implements AutoCloseable {
+    static final int SYNC_EVERY_DEALS = 32;
+    static final long SYNC_EVERY_NANOS = 1_000_000_000L;
+    private static final String OUTCOME_CODES = "LWUC";
+    // Indexed by outcome: DealResult.LOST, WON, UNKNOWN and CANCELLED
+
+    private final FileChannel channel;
+    private final List<DealResult> completedDeals = new ArrayList<>();
+    private final BitSet completed = new BitSet();
+    private final StringBuilder pending = new StringBuilder();
+    private int numPending;
+    private long lastSync = System.nanoTime();
+
+    /**
+     * Constructor for ProgressJournal.
+     * Starts a new journal, or when resuming, reads the deals finished by an earlier run with the same
+     * configuration and appends after them.
+     * @param path the journal file
+     * @param configuration the line describing the run's configuration
+     * @param resume true to resume from an existing journal, false to start a new one
+     * @throws IOException if the journal cannot be read or written, or was written by a different configuration
+     */
+    public ProgressJournal(Path path, String configuration, boolean resume) throws IOException {
+        String header = "# " + configuration + "\n";
+        if (resume && Files.exists(path)) {
+            long end = readDeals(path, header);
+            channel = FileChannel.open(path, StandardOpenOption.WRITE);
+            channel.truncate(end);
+            channel.position(end);
+        }
+        else {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            write(header);
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Returns the configuration line an existing journal was written with.
+     * @param path the journal file
+     * @return the configuration, or null if the journal has no configuration line
+     * @throws IOException if the journal cannot be read
+     */
+    public static String readConfiguration(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            return header != null && header.startsWith("# ") ? header.substring(2) : null;
+        }
+    }
+
+    /**
+     * Returns the deals finished by earlier runs, in the order they were finished.
+     * @return the finished deals
+     */
+    public List<DealResult> getCompletedDeals() {
+        return completedDeals;
+    }
+
+    /**
+     * Returns whether a deal was finished by an earlier run.
+     * @param dealIndex the index of the deal
+     * @return true if the deal does not need to be solved again
+     */
+    public boolean isCompleted(int dealIndex) {
+        return completed.get(dealIndex);
+    }
+
+    /**
+     * Appends a finished deal, syncing the file if a batch is full or the last sync was long enough ago.
+     * @param deal the finished deal
+     * @throws IOException if the journal cannot be written
+     */
+    public void append(DealResult deal) throws IOException {
+        pending.append(deal.getDealIndex()).append(' ').append((long) deal.getDurationMs()).append(' ')
+                .append((long) deal.getTimeToFirstWinMs()).append(' ');
+        for (int i = 0; i < deal.getNumThreads(); i++) {
+            pending.append(OUTCOME_CODES.charAt(deal.getOutcome(i)));
+        }
+        for (int i = 0; i < deal.getNumThreads(); i++) {
+            pending.append(' ').append(deal.getMoves(i));
+        }
+        pending.append('\n');
+        numPending++;
+
+        if (numPending >= SYNC_EVERY_DEALS || System.nanoTime() - lastSync >= SYNC_EVERY_NANOS) {
+            sync();
+        }
+    }
+
+    /**
+     * Writes and syncs every pending deal, then closes the journal.
+     * @throws IOException if the journal cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void sync() throws IOException {
+        if (numPending > 0) {
+            write(pending.toString());
+            pending.setLength(0);
+            numPending = 0;
+            channel.force(false);
+        }
+        lastSync = System.nanoTime();
+    }
+
+    private void write(String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Reads the finished deals from an existing journal.
+     * @param path the journal file
+     * @param header the configuration line the journal must start with
+     * @return the length of the journal up to the end of the last complete line
+     * @throws IOException if the journal cannot be read or was written by a different configuration
+     */
+    private long readDeals(Path path, String header) throws IOException {
+        String text = Files.readString(path, StandardCharsets.UTF_8);
+        if (!text.startsWith(header)) {
+            throw new IOException(path + " was written by a run with a different configuration. Expected: " +
+                    header.trim());
+        }
+        int start = header.length();
+        int end;
+        while ((end = text.indexOf('\n', start)) != -1) {
+            DealResult deal = parseDeal(text.substring(start, end));
+            if (deal == null) {
+                break;
+            }
+            completedDeals.add(deal);
+            completed.set(deal.getDealIndex());
+            start = end + 1;
+        }
+        return text.substring(0, start).getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static DealResult parseDeal(String line) {
+        String[] fields = line.split(" ");
+        if (fields.length < 4) {
+            return null;
+        }
+        try {
+            int dealIndex = Integer.parseInt(fields[0]);
+            double durationMs = Long.parseLong(fields[1]);
+            double timeToFirstWinMs = Long.parseLong(fields[2]);
+            String codes = fields[3];
+            if (fields.length != 4 + codes.length()) {
+                return null;
+            }
+            byte[] outcomes = new byte[codes.length()];
+            int[] moves = new int[codes.length()];
+            for (int i = 0; i < codes.length(); i++) {
+                int outcome = OUTCOME_CODES.indexOf(codes.charAt(i));
+                if (outcome == -1) {
+                    return null;
+                }
+                outcomes[i] = (byte) outcome;
+                moves[i] = Integer.parseInt(fields[4 + i]);
+            }
+            return DealResult.restore(dealIndex, null, outcomes, moves, durationMs, timeToFirstWinMs);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
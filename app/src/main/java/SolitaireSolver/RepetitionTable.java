@@ -0,0 +1,118 @@
+package SolitaireSolver;
+
+import java.util.Arrays;
+
+/**
+ * RepetitionTable class counting how many times each game state hash has been seen.
+ * Uses open addressing over primitive arrays so lookups are constant time and do not allocate.
+ * Entries are stamped with a generation, so clearing the table for reuse is constant time.
+ */
+public class RepetitionTable {
+    private long[] keys;
+    private int[] counts;
+    private int[] stamps;
+    private int generation;
+    private int size;
+    private int mask;
+
+    /**
+     * Constructor for RepetitionTable.
+     */
+    public RepetitionTable() {
+        this(1024);
+    }
+
+    /**
+     * Constructor for RepetitionTable.
+     * @param capacity the initial capacity, rounded up to a power of two
+     */
+    public RepetitionTable(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+        keys = new long[tableSize];
+        counts = new int[tableSize];
+        stamps = new int[tableSize];
+        generation = 1;
+        mask = tableSize - 1;
+    }
+
+    /**
+     * Returns the number of times the given state has been added.
+     * @param hash the state hash
+     * @return the number of times the state has been seen
+     */
+    public int getCount(long hash) {
+        int slot = findSlot(hash);
+        return stamps[slot] == generation ? counts[slot] : 0;
+    }
+
+    /**
+     * Records one more occurrence of the given state.
+     * @param hash the state hash
+     * @return the number of times the state has now been seen
+     */
+    public int add(long hash) {
+        int slot = findSlot(hash);
+        if (stamps[slot] != generation) {
+            stamps[slot] = generation;
+            keys[slot] = hash;
+            counts[slot] = 0;
+            size++;
+        }
+        int count = ++counts[slot];
+        if (size * 2 > keys.length) {
+            grow();
+        }
+        return count;
+    }
+
+    /**
+     * Removes every state from the table.
+     */
+    public void clear() {
+        size = 0;
+        generation++;
+        if (generation == 0) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int findSlot(long hash) {
+        int slot = mix(hash) & mask;
+        while (stamps[slot] == generation && keys[slot] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(long hash) {
+        long h = hash * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        int[] oldStamps = stamps;
+        int oldGeneration = generation;
+
+        keys = new long[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        stamps = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        generation = 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStamps[i] == oldGeneration) {
+                int slot = findSlot(oldKeys[i]);
+                stamps[slot] = generation;
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+}
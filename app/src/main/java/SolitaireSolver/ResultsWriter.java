@@ -0,0 +1,245 @@
+package SolitaireSolver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * ResultsWriter class writing one record for every thread solving every deal to a CSV or JSON Lines file.
+ * Records are formatted by the solving threads and handed to a background thread through a bounded queue, so
+ * solving threads only wait on the file if the writer falls a whole queue behind. The file is gzip-compressed
+ * if its name ends in '.gz', and is JSON Lines if its name, without '.gz', ends in '.jsonl'. Otherwise it is CSV.
+ * The writer thread encodes records into a direct buffer and writes it to a FileChannel when full. Gzip output is
+ * deflated from that buffer into a second direct buffer, so no bytes are copied through the heap on the way out.
+ */
+public class ResultsWriter implements AutoCloseable {
+    public enum Format { CSV, JSONL }
+
+    static final String[] COLUMNS = {"seed", "deal", "thread", "solver", "randomness", "simulations", "result",
+            "moves", "nanos", "rollouts"};
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final Object END = new Object();
+    // Marks the end of the records. Not a String, so no record can be mistaken for it
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private final Format format;
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final Deflater deflater; // Null unless the file is gzip-compressed
+    private final ByteBuffer compressed;
+    private final CRC32 crc = new CRC32();
+    private final Thread writerThread;
+    private volatile IOException error;
+
+    /**
+     * Constructor for ResultsWriter. Creates the file, replacing any existing one, and starts the writer thread.
+     * @param path the file to write the records to
+     * @throws IOException if the file cannot be created
+     */
+    public ResultsWriter(Path path) throws IOException {
+        String name = path.getFileName().toString();
+        boolean gzip = name.endsWith(".gz");
+        if (gzip) {
+            name = name.substring(0, name.length() - 3);
+        }
+        this.format = name.endsWith(".jsonl") ? Format.JSONL : Format.CSV;
+
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        if (gzip) {
+            this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            this.compressed = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            writeFully(ByteBuffer.wrap(GZIP_HEADER));
+        }
+        else {
+            this.deflater = null;
+            this.compressed = null;
+        }
+        if (format == Format.CSV) {
+            put(String.join(",", COLUMNS) + '\n');
+        }
+
+        this.writerThread = new Thread(this::writeRecords, "results-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Writes the result of one thread solving a deal. Safe to call from any thread.
+     * @param seed the seed of the run
+     * @param deal the index of the deal in the run
+     * @param thread the index of the thread solving the deal
+     * @param solverType the type of solver used ('r', 'g', 'p', 'm', 'u', or 'x')
+     * @param randomnessPercentage the Monte Carlo randomness percentage
+     * @param numSimulations the Monte Carlo simulations per move
+     * @param result "won", "lost", "unknown" or "cancelled"
+     * @param moves the number of moves made
+     * @param nanos the time the thread spent solving, in nanoseconds
+     * @param rollouts the number of Monte Carlo simulations the thread ran
+     */
+    public void write(long seed, int deal, int thread, char solverType, int randomnessPercentage,
+                      int numSimulations, String result, int moves, long nanos, long rollouts) {
+        StringBuilder record = new StringBuilder(96);
+        if (format == Format.CSV) {
+            record.append(seed).append(',').append(deal).append(',').append(thread).append(',')
+                    .append(solverType).append(',').append(randomnessPercentage).append(',')
+                    .append(numSimulations).append(',').append(result).append(',').append(moves).append(',')
+                    .append(nanos).append(',').append(rollouts);
+        }
+        else {
+            record.append("{\"seed\":").append(seed).append(",\"deal\":").append(deal)
+                    .append(",\"thread\":").append(thread).append(",\"solver\":\"").append(solverType)
+                    .append("\",\"randomness\":").append(randomnessPercentage)
+                    .append(",\"simulations\":").append(numSimulations)
+                    .append(",\"result\":\"").append(result).append("\",\"moves\":").append(moves)
+                    .append(",\"nanos\":").append(nanos).append(",\"rollouts\":").append(rollouts).append('}');
+        }
+        record.append('\n');
+        try {
+            queue.put(record.toString());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes every queued record, then flushes and closes the file.
+     * @throws IOException if any record could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            queue.put(END);
+            writerThread.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (error == null) {
+                finish();
+            }
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+            channel.close();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Writes records in batches until the end of the queue is reached.
+     * After a write fails the remaining records are discarded, so solving threads never block on a full queue.
+     */
+    private void writeRecords() {
+        ArrayList<Object> batch = new ArrayList<>(QUEUE_CAPACITY);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                for (Object record : batch) {
+                    if (record == END) {
+                        return;
+                    }
+                    if (error == null) {
+                        try {
+                            put((String) record);
+                        } catch (IOException e) {
+                            error = e;
+                        }
+                    }
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Encodes text into the buffer, draining the buffer to the file whenever it fills.
+     * @param text the text to encode
+     * @throws IOException if the buffer could not be drained
+     */
+    private void put(String text) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(text);
+        while (encoder.encode(chars, buffer, false).isOverflow()) {
+            drain();
+        }
+    }
+
+    /**
+     * Writes the buffer to the file, deflating it first if the file is gzip-compressed, and empties it.
+     * @throws IOException if the file could not be written
+     */
+    private void drain() throws IOException {
+        buffer.flip();
+        if (deflater == null) {
+            writeFully(buffer);
+        }
+        else {
+            crc.update(buffer.slice());
+            deflater.setInput(buffer.slice());
+            // The deflater keeps its input, so it is given a slice that stays consumed once the buffer is cleared
+            while (!deflater.needsInput()) {
+                deflate();
+            }
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Drains the buffer and, if the file is gzip-compressed, ends the deflated data and writes the gzip trailer.
+     * @throws IOException if the file could not be written
+     */
+    private void finish() throws IOException {
+        drain();
+        if (deflater != null) {
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate();
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            trailer.putInt((int) crc.getValue()).putInt((int) deflater.getBytesRead()).flip();
+            writeFully(trailer);
+        }
+    }
+
+    /**
+     * Deflates as much pending input as fits in the compressed buffer and writes it to the file.
+     * @throws IOException if the file could not be written
+     */
+    private void deflate() throws IOException {
+        compressed.clear();
+        deflater.deflate(compressed);
+        compressed.flip();
+        writeFully(compressed);
+    }
+
+    /**
+     * Writes every remaining byte of a buffer to the file.
+     * @param bytes the buffer to write
+     * @throws IOException if the file could not be written
+     */
+    private void writeFully(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+}
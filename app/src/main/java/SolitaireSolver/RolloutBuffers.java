@@ -0,0 +1,42 @@
+package SolitaireSolver;
+
+/**
+ * RolloutBuffers class holding the tables and buffers a Monte Carlo simulation works in, so simulations run one
+ * after another do not allocate.
+ * Only one simulation can use a set at a time. Threads that run many simulations keep one set in
+ * Run.ROLLOUT_BUFFERS, while virtual threads, which each run a single leaf of simulations, are handed a set from a
+ * shared pool instead of building their own.
+ */
+public class RolloutBuffers {
+    final RepetitionTable states = new RepetitionTable();
+    final MoveBuffer moves = new MoveBuffer();
+    final MoveJournal journal = new MoveJournal();
+    final long[] stuck = new long[DeadEnds.SCRATCH_SIZE];
+    private ExactSolver endgameSolver;
+    private long[] undecidedEndgames;
+    // Keys of endgames the searches could not decide, so the many simulations reaching the same state do not
+    // repeat the same search. Entries are overwritten on collision, which can only repeat a search
+
+    /**
+     * Returns the exact solver used to decide endgames, creating it the first time it is needed.
+     * @return the endgame solver
+     */
+    ExactSolver getEndgameSolver() {
+        if (endgameSolver == null) {
+            endgameSolver = new ExactSolver(Run.ENDGAME_NODE_LIMIT, Run.ENDGAME_TIME_LIMIT_MS,
+                    Run.ENDGAME_TABLE_BITS);
+        }
+        return endgameSolver;
+    }
+
+    /**
+     * Returns the table of endgames the endgame solver could not decide, creating it the first time it is needed.
+     * @return the table of state keys, 0 for an empty slot
+     */
+    long[] getUndecidedEndgames() {
+        if (undecidedEndgames == null) {
+            undecidedEndgames = new long[1 << Run.ENDGAME_UNDECIDED_BITS];
+        }
+        return undecidedEndgames;
+    }
+}
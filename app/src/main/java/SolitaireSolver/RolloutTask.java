@@ -0,0 +1,213 @@
+package SolitaireSolver;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BooleanSupplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * RolloutTask class splitting the simulations of a single Monte Carlo decision across a ForkJoinPool.
+ * Each task covers a range of simulations for one candidate move. Ranges are halved until they are small
+ * enough, then the leaf clones the game, makes the move on its clone and runs its simulations there.
+ * Scores are summed into a shared atomic array, so no locks are taken.
+ * Each leaf seeds its own generator from the decision seed and its position, so results do not depend on
+ * which worker runs which task. The leaves can also each be run on a virtual thread instead of a pool.
+ */
+public class RolloutTask extends RecursiveAction {
+    static final int SIMULATIONS_PER_TASK = 4;
+    private static final ConcurrentLinkedQueue<RolloutBuffers> VIRTUAL_BUFFERS = new ConcurrentLinkedQueue<>();
+    // Buffers for leaves run on virtual threads, which would otherwise each build their own. A leaf holds a set
+    // only while it holds a permit, so there are never more sets than permits
+
+    private final Solitaire game;
+    private final Move move;
+    private final int moveIndex;
+    private final int from, to;
+    private final long seed;
+    private final AtomicLongArray scores;
+    private final AtomicBoolean winFound;
+    private final BooleanSupplier cancelled;
+
+    private RolloutTask(Solitaire game, Move move, int moveIndex, int from, int to, long seed,
+                        AtomicLongArray scores, AtomicBoolean winFound, BooleanSupplier cancelled) {
+        this.game = game;
+        this.move = move;
+        this.moveIndex = moveIndex;
+        this.from = from;
+        this.to = to;
+        this.seed = seed;
+        this.scores = scores;
+        this.winFound = winFound;
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * Runs numSimulations simulations for every possible move in parallel and adds the results to each
+     * move's Monte Carlo score.
+     * The game is only read while the simulations run, so it must not be changed until this returns.
+     * If the deal being solved is cancelled, the remaining simulations are skipped.
+     * @param game the current game state
+     * @param possibleMoves the moves to simulate
+     * @param numSimulations the number of simulations to run for each move
+     * @param pool the pool to run the simulations on
+     * @param random the generator the decision seed is drawn from
+     * @return true if a simulation won the game
+     */
+    public static boolean simulateMoves(Solitaire game, ArrayList<Move> possibleMoves, int numSimulations,
+                                        ForkJoinPool pool, RandomGenerator random) {
+        long seed = random.nextLong();
+        AtomicLongArray scores = new AtomicLongArray(possibleMoves.size());
+        AtomicBoolean winFound = new AtomicBoolean();
+        DealResult deal = Run.getCurrentDeal();
+        BooleanSupplier cancelled = deal == null ? () -> false : deal::isCancelled;
+        // Read on the calling thread, as the pool's workers are not solving a deal of their own
+
+        RolloutTask[] tasks = new RolloutTask[possibleMoves.size()];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new RolloutTask(game, possibleMoves.get(i), i, 0, numSimulations, seed, scores, winFound,
+                    cancelled);
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        for (int i = 0; i < possibleMoves.size(); i++) {
+            possibleMoves.get(i).setMonteCarloScore((int) scores.get(i));
+        }
+        return winFound.get();
+    }
+
+    /**
+     * Runs numSimulations simulations for every possible move, with each leaf task on its own virtual thread,
+     * and adds the results to each move's Monte Carlo score.
+     * The simulations are split into the same leaves as on a pool, so the scores are the same. Each virtual
+     * thread holds one of the permits while it simulates, which bounds how many run at once. The calling thread
+     * must not hold a permit while it waits, or the simulations may never get one.
+     * Every virtual thread has finished when this returns. If the calling thread is interrupted, the remaining
+     * simulations are stopped, the interrupt is kept and no win is reported.
+     * @param game the current game state
+     * @param possibleMoves the moves to simulate
+     * @param numSimulations the number of simulations to run for each move
+     * @param permits the permits bounding how many simulations run at once
+     * @param random the generator the decision seed is drawn from
+     * @return true if a simulation won the game
+     */
+    public static boolean simulateMovesVirtual(Solitaire game, ArrayList<Move> possibleMoves, int numSimulations,
+                                               Semaphore permits, RandomGenerator random) {
+        long seed = random.nextLong();
+        AtomicLongArray scores = new AtomicLongArray(possibleMoves.size());
+        AtomicBoolean winFound = new AtomicBoolean();
+        AtomicBoolean stopped = new AtomicBoolean();
+        DealResult deal = Run.getCurrentDeal();
+        BooleanSupplier cancelled = deal == null ? stopped::get : () -> stopped.get() || deal.isCancelled();
+
+        ArrayList<RolloutTask> leaves = new ArrayList<>();
+        for (int i = 0; i < possibleMoves.size(); i++) {
+            new RolloutTask(game, possibleMoves.get(i), i, 0, numSimulations, seed, scores, winFound, cancelled)
+                    .addLeaves(leaves);
+        }
+        Thread[] threads = new Thread[leaves.size()];
+        for (int i = 0; i < threads.length; i++) {
+            RolloutTask leaf = leaves.get(i);
+            threads[i] = Thread.ofVirtual().start(() -> {
+                permits.acquireUninterruptibly();
+                RolloutBuffers buffers = VIRTUAL_BUFFERS.poll();
+                if (buffers == null) {
+                    buffers = new RolloutBuffers();
+                }
+                try {
+                    leaf.simulate(buffers);
+                } finally {
+                    VIRTUAL_BUFFERS.offer(buffers);
+                    permits.release();
+                }
+            });
+        }
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            while (true) {
+                try {
+                    thread.join();
+                    break;
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                    stopped.set(true);
+                }
+            }
+        } // On an interrupt the remaining simulations are stopped, but are still waited for so none outlives this
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        } // The solver stops once it sees the interrupt
+
+        for (int i = 0; i < possibleMoves.size(); i++) {
+            possibleMoves.get(i).setMonteCarloScore((int) scores.get(i));
+        }
+        return winFound.get() && !interrupted;
+    }
+
+    /**
+     * Halves the task's range of simulations the same way compute does and adds the resulting leaves to the list.
+     * @param leaves the list the leaf tasks are added to
+     */
+    private void addLeaves(ArrayList<RolloutTask> leaves) {
+        if (to - from > SIMULATIONS_PER_TASK) {
+            int mid = (from + to) >>> 1;
+            new RolloutTask(game, move, moveIndex, from, mid, seed, scores, winFound, cancelled).addLeaves(leaves);
+            new RolloutTask(game, move, moveIndex, mid, to, seed, scores, winFound, cancelled).addLeaves(leaves);
+        }
+        else {
+            leaves.add(this);
+        }
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from > SIMULATIONS_PER_TASK) {
+            if (winFound.get() || cancelled.getAsBoolean()) {
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RolloutTask(game, move, moveIndex, from, mid, seed, scores, winFound, cancelled),
+                    new RolloutTask(game, move, moveIndex, mid, to, seed, scores, winFound, cancelled));
+            return;
+        }
+        simulate(Run.ROLLOUT_BUFFERS.get());
+    }
+
+    /**
+     * Runs the leaf's simulations on its own clone of the game and adds the results to the move's score.
+     * @param buffers the buffers to simulate in, used by no other leaf while this runs
+     */
+    private void simulate(RolloutBuffers buffers) {
+        if (winFound.get() || cancelled.getAsBoolean()) {
+            return;
+        }
+        Solitaire clone = new Solitaire(game);
+        MoveJournal journal = buffers.journal;
+        SplittableRandom random = new SplittableRandom(seed + 0x9E3779B97F4A7C15L * ((long) moveIndex << 32 | from));
+        journal.makeMove(clone, clone.getMatchingMove(move, game));
+
+        long score = 0;
+        for (int i = from; i < to && !winFound.get() && !cancelled.getAsBoolean(); i++) {
+            int gameSim = Run.greedyHeuristicPrioritySolitaireSolverWithRandom(clone, journal, random, buffers);
+            if (gameSim == 52) {
+                winFound.set(true);
+                break;
+            }
+            score += gameSim;
+            journal.rewind(clone, 1);
+        }
+        journal.rewind(clone, 0);
+        // Empty the journal for the next leaf to use
+        scores.addAndGet(moveIndex, score);
+    }
+}
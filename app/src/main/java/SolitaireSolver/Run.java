@@ -1,12 +1,19 @@
 package SolitaireSolver;
 
 import SolitaireSolver.Exceptions.InvalidNumArgumentsException;
+import SolitaireSolver.Exceptions.InvalidOptionException;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.random.RandomGenerator;
 
 /**
  * Run class to execute the Solitaire game solver.
@@ -16,6 +23,57 @@ public class Run {
     static int MAX_REPEATS = 5;
     static int RANDOMNESS_PERCENTAGE;
     static int NUM_SIMULATIONS;
+    static long SEED = new SplittableRandom().nextLong();
+    // Set by --seed so a run deals and plays the same games every time
+    static ForkJoinPool ROLLOUT_POOL;
+    // Set by --rollout-threads to split each Monte Carlo decision's simulations across a pool
+    static boolean SHARED_POOL;
+    static int QUEUED_PER_THREAD = 2;
+    // Set by --shared-pool to solve every deal on one long-lived pool instead of a new pool per deal
+    static boolean VIRTUAL_THREADS;
+    static boolean VIRTUAL_ROLLOUTS;
+    static Semaphore CPU_PERMITS = new Semaphore(Runtime.getRuntime().availableProcessors());
+    // Set by --executor=virtual to solve each deal on virtual threads, at most one per CPU solving at once
+    static boolean FIRST_WIN;
+    // Set by --first-win to cancel a deal's other threads as soon as one of them wins it
+    static ResultsWriter RESULTS;
+    // Set by --results to write a record for every thread solving every deal
+    static boolean VERBOSE;
+    // Set by --verbose to output every deal's board
+    static DealCorpus CORPUS;
+    // Set by --corpus to read the deals from a file instead of dealing them
+    static ProgressJournal JOURNAL;
+    // Set by --journal to record every finished deal, so the run can be resumed with --resume
+    static DealCache CACHE;
+    static String CACHE_CONFIGURATION;
+    static int CACHE_SIZE = 100_000;
+    // Set by --cache to reuse the results of deals solved with the same settings by earlier runs
+    static boolean SUCCESSIVE_HALVING;
+    // Set by --rollout-budget=halving to share each Monte Carlo decision's simulations out by successive halving
+    static double UCT_EXPLORATION = 0.25;
+    // UCB1 exploration constant of the tree search solver, set by --exploration
+    static long EXACT_NODE_LIMIT = 10_000_000;
+    static long EXACT_TIME_LIMIT_MS = 60_000;
+    static int EXACT_TABLE_BITS = 20;
+    static int ENDGAME_THRESHOLD = 0;
+    static long ENDGAME_NODE_LIMIT = 500;
+    static long ENDGAME_TIME_LIMIT_MS = 100;
+    static int ENDGAME_TABLE_BITS = 10;
+    static int ENDGAME_UNDECIDED_BITS = 12;
+    // Set by --endgame=n to decide games by exact search once fewer than n cards are face down or in the stock
+
+    private static final ThreadLocal<ExactSolver> EXACT_SOLVER = ThreadLocal.withInitial(() ->
+            new ExactSolver(EXACT_NODE_LIMIT, EXACT_TIME_LIMIT_MS, EXACT_TABLE_BITS));
+    // Each thread reuses one exact solver, so its transposition table is only allocated once
+
+    private static final ThreadLocal<DealResult> CURRENT_DEAL = new ThreadLocal<>();
+    // The deal the thread is solving in first-win mode, polled by the solvers so they stop once it is cancelled
+
+    private static final ThreadLocal<long[]> ROLLOUTS_RUN = ThreadLocal.withInitial(() -> new long[1]);
+    // Counts the simulations run by the Monte Carlo solver on the thread, for the results records
+
+    static final ThreadLocal<RolloutBuffers> ROLLOUT_BUFFERS = ThreadLocal.withInitial(RolloutBuffers::new);
+    // Reused by every simulation on a thread so rollouts do not allocate a new table or move list
 
     /**
      * Outputs the current game state, possible moves, and chosen move.
@@ -38,29 +96,42 @@ public class Run {
      * Randomly selects a move from the list of possible moves and applies it to the game.
      * Returns the number of moves made when the game is solved/unsolved.
      * @param game the initial game state
+     * @param random the generator used to pick moves
      * @return the number of moves made. - 1 if the game is unsolvable, + if the game is solvable.
      */
-    public static int randomSolitaireSolver(Solitaire game) {
-        ArrayList<String> gameStates = new ArrayList<>();
-        gameStates.add(game.getGameState());
+    public static int randomSolitaireSolver(Solitaire game, RandomGenerator random) {
+        RepetitionTable gameStates = new RepetitionTable();
+        gameStates.add(game.getStateHash());
         ArrayList<Move> possibleMoves;
+        MoveJournal journal = new MoveJournal();
         int movesMade = 0;
+        int endgameCards = ENDGAME_THRESHOLD;
 
         boolean end = false;
         while (!end) {
+            if (isCancelled()) {
+                return -movesMade;
+            }
+            if (getEndgameCards(game) < endgameCards) {
+                endgameCards = getEndgameCards(game);
+                int endgame = solveEndgame(game, journal);
+                if (endgame != 0) {
+                    return endgame > 0 ? movesMade + endgame : -movesMade;
+                }
+            } // Tried again each time fewer cards are unseen, as the search may not have finished
             possibleMoves = game.getPossibleMoves();
             if (possibleMoves.isEmpty()) {
                 return -movesMade;
             }
 
-            int randomInt = (int) (Math.random() * possibleMoves.size());
+            int randomInt = random.nextInt(possibleMoves.size());
             Move move = possibleMoves.get(randomInt);
 
             game.makeMove(move);
             movesMade++;
-            String currentState = game.getGameState();
+            long currentState = game.getStateHash();
 
-            if (Collections.frequency(gameStates, currentState) > MAX_REPEATS) {
+            if (gameStates.getCount(currentState) > MAX_REPEATS || DeadEnds.isDeadEnd(game)) {
                 return -movesMade;
             }
             else if (game.getFoundation().checkWin()) {
@@ -80,13 +151,25 @@ public class Run {
      * @return the number of moves made. - 1 if the game is unsolvable, + if the game is solvable.
      */
     public static int greedyHeuristicSolitaireSolver(Solitaire game) {
-        ArrayList<String> gameStates = new ArrayList<>();
-        gameStates.add(game.getGameState());
+        RepetitionTable gameStates = new RepetitionTable();
+        gameStates.add(game.getStateHash());
         ArrayList<Move> possibleMoves;
+        MoveJournal journal = new MoveJournal();
         int movesMade = 0;
+        int endgameCards = ENDGAME_THRESHOLD;
 
         boolean end = false;
         while (!end) {
+            if (isCancelled()) {
+                return -movesMade;
+            }
+            if (getEndgameCards(game) < endgameCards) {
+                endgameCards = getEndgameCards(game);
+                int endgame = solveEndgame(game, journal);
+                if (endgame != 0) {
+                    return endgame > 0 ? movesMade + endgame : -movesMade;
+                }
+            } // Tried again each time fewer cards are unseen, as the search may not have finished
             possibleMoves = game.getPossibleMoves();
             if (possibleMoves.isEmpty()) {
                 return -movesMade;
@@ -94,9 +177,9 @@ public class Run {
 
             game.makeMove(game.getBestMove(possibleMoves));
             movesMade++;
-            String currentState = game.getGameState();
+            long currentState = game.getStateHash();
 
-            if (Collections.frequency(gameStates, currentState) > MAX_REPEATS) {
+            if (gameStates.getCount(currentState) > MAX_REPEATS || DeadEnds.isDeadEnd(game)) {
                 return -movesMade;
             }
             if (game.getFoundation().checkWin()) {
@@ -116,13 +199,25 @@ public class Run {
      * @return the number of moves made. - 1 if the game is unsolvable, + if the game is solvable.
      */
     public static int greedyHeuristicPrioritySolitaireSolver(Solitaire game) {
-        ArrayList<String> gameStates = new ArrayList<>();
-        gameStates.add(game.getGameState());
+        RepetitionTable gameStates = new RepetitionTable();
+        gameStates.add(game.getStateHash());
         ArrayList<Move> possibleMoves;
+        MoveJournal journal = new MoveJournal();
         int movesMade = 0;
+        int endgameCards = ENDGAME_THRESHOLD;
 
         boolean end = false;
         while (!end) {
+            if (isCancelled()) {
+                return -movesMade;
+            }
+            if (getEndgameCards(game) < endgameCards) {
+                endgameCards = getEndgameCards(game);
+                int endgame = solveEndgame(game, journal);
+                if (endgame != 0) {
+                    return endgame > 0 ? movesMade + endgame : -movesMade;
+                }
+            } // Tried again each time fewer cards are unseen, as the search may not have finished
             possibleMoves = game.getPossibleMoves();
             if (possibleMoves.isEmpty()) {
                 return -movesMade;
@@ -131,9 +226,9 @@ public class Run {
 
             game.makeMove(bestMove);
             movesMade++;
-            String currentState = game.getGameState();
+            long currentState = game.getStateHash();
 
-            if (Collections.frequency(gameStates, currentState) > MAX_REPEATS) {
+            if (gameStates.getCount(currentState) > MAX_REPEATS || DeadEnds.isDeadEnd(game)) {
                 return -movesMade;
             }
             if (game.getFoundation().checkWin()) {
@@ -149,34 +244,63 @@ public class Run {
      * Used by the monteCarloSolitaireSolver in the move simulations.
      * There is a RANDOMNESS_PERCENTAGE chance that a random move will be made. Otherwise, the solver
      * greedily selects the best move, based on a heuristic value and priority
-     * Returns the number of 'face-up' cards left in the game
+     * Returns the number of 'face-up' cards left in the game, as soon as there are no moves, a state repeats
+     * or the game is a dead end (see DeadEnds). Once few enough cards are unseen, the rest of the game is decided
+     * by solveEndgame instead of being played out.
+     * Every move is recorded in the journal so the caller can rewind the game once the simulation ends.
      * @param game the initial game state of the simulated game.
+     * @param journal the journal the simulated moves are recorded in
+     * @param random the generator used to pick random moves
      * @return the number of 'face-up' cards left in the game.
      */
-    public static int greedyHeuristicPrioritySolitaireSolverWithRandom(Solitaire game) {
-        ArrayList<String> gameStates = new ArrayList<>();
-        gameStates.add(game.getGameState());
-        ArrayList<Move> possibleMoves;
+    public static int greedyHeuristicPrioritySolitaireSolverWithRandom(Solitaire game, MoveJournal journal,
+                                                                       RandomGenerator random) {
+        return greedyHeuristicPrioritySolitaireSolverWithRandom(game, journal, random, ROLLOUT_BUFFERS.get());
+    }
+
+    /**
+     * Runs one simulation the same way, working in the given buffers instead of the thread's own.
+     * @param game the initial game state of the simulated game.
+     * @param journal the journal the simulated moves are recorded in
+     * @param random the generator used to pick random moves
+     * @param buffers the buffers to work in, used by no other simulation while this runs
+     * @return the number of 'face-up' cards left in the game.
+     */
+    static int greedyHeuristicPrioritySolitaireSolverWithRandom(Solitaire game, MoveJournal journal,
+                                                                RandomGenerator random, RolloutBuffers buffers) {
+        RepetitionTable gameStates = buffers.states;
+        gameStates.clear();
+        gameStates.add(game.getStateHash());
+        MoveBuffer possibleMoves = buffers.moves;
+        int endgameCards = ENDGAME_THRESHOLD;
 
         boolean end = false;
         while (!end) {
-            possibleMoves = game.getPossibleMoves();
+            if (getEndgameCards(game) < endgameCards) {
+                endgameCards = getEndgameCards(game);
+                int endgame = solveEndgame(game, journal, buffers);
+                if (endgame > 0) {
+                    return 52;
+                } else if (endgame < 0) {
+                    return 52 - game.getHiddenCardsCount();
+                }
+            } // Tried again each time fewer cards are unseen, as the search may not have finished
+            game.generateMoves(possibleMoves);
             if (possibleMoves.isEmpty()) {
                 return 52 - game.getHiddenCardsCount();
             }
 
-            int randInt = (int) (Math.random() * 100);
+            int randInt = random.nextInt(100);
             if ((0 <= randInt) && (randInt < RANDOMNESS_PERCENTAGE)) {
-                int randomInt = (int) (Math.random() * possibleMoves.size());
-                game.makeMove(possibleMoves.get(randomInt));
+                int randomInt = random.nextInt(possibleMoves.size());
+                journal.makeMove(game, possibleMoves.get(randomInt));
             } else {
-                Move bestMove = game.getBestMoveWithPriority(possibleMoves);
-                game.makeMove(bestMove);
+                journal.makeMove(game, possibleMoves.getBestMoveWithPriority());
             }
 
-            String currentState = game.getGameState();
+            long currentState = game.getStateHash();
 
-            if (Collections.frequency(gameStates, currentState) > 3) {
+            if (gameStates.getCount(currentState) > 3 || DeadEnds.isDeadEnd(game, buffers.stuck)) {
                 return 52 - game.getHiddenCardsCount();
             }
             if (game.getFoundation().checkWin()) {
@@ -188,6 +312,106 @@ public class Run {
         return -1;
     }
 
+    /**
+     * Runs numSimulations simulations for every possible move, one after another, adding the results to each
+     * move's Monte Carlo score. The game is rewound to its current state after every simulation.
+     * If the deal being solved is cancelled, the remaining simulations are skipped.
+     * @param game the current game state
+     * @param possibleMoves the moves to simulate
+     * @param numSimulations the number of simulations to run for each move
+     * @param journal the journal used to rewind simulated moves
+     * @param random the generator used by the simulations
+     * @return true if a simulation won the game
+     */
+    static boolean simulateMoves(Solitaire game, ArrayList<Move> possibleMoves, int numSimulations,
+                                 MoveJournal journal, RandomGenerator random) {
+        for (Move move : possibleMoves) {
+            journal.makeMove(game, move);
+            for (int i = 0; i < numSimulations; i++) {
+                if (isCancelled()) {
+                    journal.rewind(game, 0);
+                    return false;
+                }
+                int gameSim = greedyHeuristicPrioritySolitaireSolverWithRandom(game, journal, random);
+                if (gameSim == 52) {
+                    return true;
+                }
+                else {
+                    move.setMonteCarloScore(gameSim);
+                }
+                journal.rewind(game, 1);
+                // Rewind game to state after the simulated move was made
+            }
+            journal.rewind(game, 0);
+            // Rewind game to state before move was simulated
+        }
+        return false;
+    }
+
+    /**
+     * Runs numSimulations simulations for every move given, on ROLLOUT_POOL or virtual threads if either was
+     * chosen, otherwise on the current thread, and adds the results to each move's Monte Carlo score.
+     * @param game the current game state
+     * @param moves the moves to simulate
+     * @param numSimulations the number of simulations to run for each move
+     * @param journal the journal used to rewind simulated moves
+     * @param random the generator used by the simulations
+     * @return true if a simulation won the game
+     */
+    static boolean runSimulations(Solitaire game, ArrayList<Move> moves, int numSimulations, MoveJournal journal,
+                                  RandomGenerator random) {
+        ROLLOUTS_RUN.get()[0] += (long) moves.size() * numSimulations;
+        if (VIRTUAL_ROLLOUTS) {
+            CPU_PERMITS.release();
+            try {
+                return RolloutTask.simulateMovesVirtual(game, moves, numSimulations, CPU_PERMITS, random);
+            } finally {
+                CPU_PERMITS.acquireUninterruptibly();
+            }
+            // The permit is given up while waiting so the simulations can use it
+        } else if (ROLLOUT_POOL != null) {
+            return RolloutTask.simulateMoves(game, moves, numSimulations, ROLLOUT_POOL, random);
+        } else {
+            return simulateMoves(game, moves, numSimulations, journal, random);
+        }
+    }
+
+    /**
+     * Shares out the same number of simulations as numSimulations per move by successive halving.
+     * The simulations are run in rounds. Each round gives every remaining candidate an equal share of that round's
+     * simulations, then removes the half of the candidates with the lowest Monte Carlo scores, until one is left.
+     * Every remaining candidate has had the same number of simulations, so their scores can be compared directly.
+     * Moves that are clearly worse are dropped after a few simulations, leaving more for the closest moves.
+     * @param game the current game state
+     * @param candidates the moves to simulate, reduced to the best move found
+     * @param numSimulations the average number of simulations to run for each move
+     * @param journal the journal used to rewind simulated moves
+     * @param random the generator used by the simulations
+     * @return true if a simulation won the game
+     */
+    static boolean simulateMovesHalving(Solitaire game, ArrayList<Move> candidates, int numSimulations,
+                                        MoveJournal journal, RandomGenerator random) {
+        long budget = (long) candidates.size() * numSimulations;
+        int rounds = Math.max(1, 32 - Integer.numberOfLeadingZeros(candidates.size() - 1));
+        // ceil(log2(candidates)) rounds halve the candidates down to one
+
+        while (rounds > 0) {
+            int simulations = (int) Math.max(1, budget / ((long) candidates.size() * rounds));
+            if (runSimulations(game, candidates, simulations, journal, random)) {
+                return true;
+            }
+            budget -= (long) candidates.size() * simulations;
+            rounds--;
+            if (isCancelled()) {
+                return false;
+            }
+
+            candidates.sort(Comparator.comparingInt(Move::getMonteCarloScore).reversed());
+            candidates.subList((candidates.size() + 1) / 2, candidates.size()).clear();
+        }
+        return false;
+    }
+
     /**
      * Monte Carlo solver that simulates moves and selects the best one based on the Monte Carlo score achieved
      * by each move.
@@ -196,53 +420,56 @@ public class Run {
      * Returns the number of moves made when the game is solved/unsolved.
      * @param game the initial game state
      * @param numSimulations the number of simulations to run for each move
+     * @param random the generator used by the simulations and to break ties
      * @return the number of moves made. - 1 if the game is unsolvable, + if the game is solvable.
      */
-    public static int monteCarloSolitaireSolver(Solitaire game, int numSimulations) {
-        ArrayList<String> gameStates = new ArrayList<>();
-        gameStates.add(game.getGameState());
+    public static int monteCarloSolitaireSolver(Solitaire game, int numSimulations, RandomGenerator random) {
+        RepetitionTable gameStates = new RepetitionTable();
+        gameStates.add(game.getStateHash());
         ArrayList<Move> possibleMoves;
-        Stack<GameStateCopy> history = new Stack<>();
+        MoveJournal journal = new MoveJournal();
         int movesMade = 0;
+        int endgameCards = ENDGAME_THRESHOLD;
 
         boolean end = false;
         while (!end) {
+            if (isCancelled()) {
+                return -movesMade;
+            }
+            if (getEndgameCards(game) < endgameCards) {
+                endgameCards = getEndgameCards(game);
+                int endgame = solveEndgame(game, journal);
+                if (endgame != 0) {
+                    return endgame > 0 ? movesMade + endgame : -movesMade;
+                }
+            } // Tried again each time fewer cards are unseen, as the search may not have finished
             possibleMoves = game.getPossibleMoves();
             if (possibleMoves.isEmpty()) {
                 return -movesMade;
             }
 
-            for (Move move : possibleMoves) {
-                history.push(new GameStateCopy(game));
-                // Save game state before move
-                game.makeMove(move);
-                for (int i = 0; i < numSimulations; i++) {
-                    history.push(new GameStateCopy(game));
-                    // Save game state after move for simulation
-                    int gameSim = greedyHeuristicPrioritySolitaireSolverWithRandom(game);
-                    if (gameSim == 52) {
-                        return movesMade + 1;
-                        // If win found in simulation, this must be a winning configuration, no need to run more sims.
-                    }
-                    else {
-                        move.setMonteCarloScore(gameSim);
-                    }
-                    history.pop().restoreGameState(game);
-                    // Restore game to state after the simulated move was made
-                }
-                history.pop().restoreGameState(game);
-                // Restore game to state before move was simulated
+            boolean simulationWon;
+            ArrayList<Move> candidates = possibleMoves;
+            if (SUCCESSIVE_HALVING) {
+                candidates = new ArrayList<>(possibleMoves);
+                simulationWon = simulateMovesHalving(game, candidates, numSimulations, journal, random);
+            } else {
+                simulationWon = runSimulations(game, possibleMoves, numSimulations, journal, random);
+            }
+            if (simulationWon) {
+                return movesMade + 1;
+                // If win found in simulation, this must be a winning configuration, no need to run more sims.
             }
 
-            Move bestMove = game.getBestMoveMonetCarlo(possibleMoves);
+            Move bestMove = game.getBestMoveMonetCarlo(candidates, random);
 
             game.makeMove(bestMove);
             movesMade++;
             game.resetMonteCarloScores(possibleMoves);
 
-            String currentState = game.getGameState();
+            long currentState = game.getStateHash();
 
-            if (Collections.frequency(gameStates, currentState) > MAX_REPEATS) {
+            if (gameStates.getCount(currentState) > MAX_REPEATS || DeadEnds.isDeadEnd(game)) {
                 return -movesMade;
             }
             if (game.getFoundation().checkWin() || game.checkWin()) {
@@ -255,228 +482,577 @@ public class Run {
     }
 
     /**
-     * Runs the specified solver for a given number of runs.
-     * Each game is run 'numThreads' times in parallel.
-     * Outputs the results, including the number of wins, time taken, and move averages.
-     * @param numRuns the number of runs to perform
-     * @param numThreads the number of threads to use
-     * @param solverType the type of solver to use ('r', 'g', 'p', or 'm')
+     * Monte Carlo Tree Search solver that grows a search tree from the current state, choosing which line to
+     * simulate next by UCB1, and keeps the subtree of each move made for the next decision.
+     * Each decision runs numSimulations simulations per possible move, the same as the Monte Carlo solver, using
+     * the same simulation policy.
+     * Returns the number of moves made when the game is solved/unsolved.
+     * @param game the initial game state
+     * @param numSimulations the number of simulations to run for each possible move at each decision
+     * @param random the generator used by the simulations
+     * @return the number of moves made. - 1 if the game is unsolvable, + if the game is solvable.
      */
-    public static void runSolver(int numRuns, int numThreads, char solverType) {
-        int numTotalWins = 0;
-        int numTotalThreadWins = 0;
-        int totalRuns;
-        ArrayList<Double> solverTimes = new ArrayList<>();
-        ArrayList<Double> solverTimesWins = new ArrayList<>();
-        ArrayList<Double> solverTimesLosses = new ArrayList<>();
-
-        List<Double> wonGamesMoves = Collections.synchronizedList(new ArrayList<>());
-        List<Double> lostGameMoves = Collections.synchronizedList(new ArrayList<>());
-
-        for (totalRuns = 0; totalRuns < numRuns; totalRuns++) {
-            long solverStart = System.nanoTime();
+    public static int mctsSolitaireSolver(Solitaire game, int numSimulations, RandomGenerator random) {
+        MctsSolver solver = new MctsSolver(numSimulations, UCT_EXPLORATION, random);
+        int result = solver.solve(game);
+        ROLLOUTS_RUN.get()[0] += solver.getRollouts();
+        return result;
+    }
 
-            AtomicInteger numWins = new AtomicInteger();
-            Solitaire baseGame = new Solitaire(new Deck());
-            System.out.println("Game " + (totalRuns + 1) + ": " + baseGame);
+    /**
+     * Exact solver that searches every move sequence to prove whether the game can be won.
+     * Gives up once EXACT_NODE_LIMIT moves have been searched or EXACT_TIME_LIMIT_MS has passed.
+     * @param game the initial game state
+     * @return the length of the win found if the game is solvable, -1 if it is proven unsolvable, or 0 if a
+     * limit was reached before either was proven.
+     */
+    public static int exactSolitaireSolver(Solitaire game) {
+        ExactSolver solver = EXACT_SOLVER.get();
+        return switch (solver.solve(game)) {
+            case SOLVABLE -> Math.max(1, solver.getSolutionLength());
+            case UNSOLVABLE -> -1;
+            case UNKNOWN -> 0;
+        };
+    }
 
-            ExecutorService executor = Executors.newFixedThreadPool(numThreads);
-            for (int j = 0; j < numThreads; j++) {
-                executor.submit(() -> {
-                    try {
-                        int result;
-                        Solitaire game = new Solitaire(baseGame);
-
-                        result = switch (solverType) {
-                            case 'r' -> randomSolitaireSolver(game);
-                            case 'g' -> greedyHeuristicSolitaireSolver(game);
-                            case 'p' -> greedyHeuristicPrioritySolitaireSolver(game);
-                            case 'm' -> monteCarloSolitaireSolver(game, NUM_SIMULATIONS);
-                            default -> -1;
-                        };
-                        if (result > 0) {
-                            numWins.getAndIncrement();
-                            wonGamesMoves.add((double) result);
-                        }
-                        else {
-                            lostGameMoves.add((double) -result);
-                        }
-                    } catch (Exception e) {
-                        System.err.println("[" + Thread.currentThread().getName() + "] encountered an error:");
-                        e.printStackTrace();
-                    }
-                });
-            }
-            executor.shutdown();
-            try {
-                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
-            } catch (InterruptedException ie) {
-                executor.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
+    /**
+     * Returns the number of cards a player cannot see or play at will: the face down cards and the stock cards.
+     * @param game the current game state
+     * @return the number of cards face down or in the stock
+     */
+    static int getEndgameCards(Solitaire game) {
+        return game.getHiddenCardsCount() + game.getStock().getStock().size();
+    }
 
-            long solverEnd = System.nanoTime();
-            double durationMs = Math.round((float) (solverEnd - solverStart) / 1_000_000);
-            solverTimes.add(durationMs);
-            int winsThisGame = numWins.get();
+    /**
+     * Decides an endgame by exact search with a small node limit, ENDGAME_NODE_LIMIT, instead of playing it out.
+     * Used by every solver once fewer than ENDGAME_THRESHOLD cards are face down or in the stock, when the search
+     * usually finishes quickly. A win found is left made on the game.
+     * A state the search could not decide is remembered, and reported as undecided again without searching.
+     * @param game the current game state
+     * @param journal the journal the winning moves are recorded in
+     * @return the length of the win found if the game is solvable, -1 if it is proven unsolvable, or 0 if the
+     * node limit was reached before either was proven.
+     */
+    static int solveEndgame(Solitaire game, MoveJournal journal) {
+        return solveEndgame(game, journal, ROLLOUT_BUFFERS.get());
+    }
 
-            System.out.println("Wins: " + winsThisGame + " out of " + numThreads + " games.");
-            System.out.println("Time taken: " + durationMs + "ms\n");
+    /**
+     * Decides an endgame the same way, with the solver and table of undecided states in the given buffers.
+     * @param game the current game state
+     * @param journal the journal the winning moves are recorded in
+     * @param buffers the buffers holding the endgame solver, used by no other simulation while this runs
+     * @return the length of the win found if the game is solvable, -1 if it is proven unsolvable, or 0 if not
+     * proven either way.
+     */
+    static int solveEndgame(Solitaire game, MoveJournal journal, RolloutBuffers buffers) {
+        long key = ExactSolver.getSearchKey(game);
+        // Never 0, which marks an empty slot
+        long[] undecided = buffers.getUndecidedEndgames();
+        int slot = (int) (key ^ (key >>> 32)) & (undecided.length - 1);
+        if (undecided[slot] == key) {
+            return 0;
+        }
 
-            if (winsThisGame > 0) {
-                numTotalWins++;
-                solverTimesWins.add(durationMs);
-            }
-            else {
-                solverTimesLosses.add(durationMs);
+        ExactSolver solver = buffers.getEndgameSolver();
+        return switch (solver.solve(game, journal)) {
+            case SOLVABLE -> Math.max(1, solver.getSolutionLength());
+            case UNSOLVABLE -> -1;
+            case UNKNOWN -> {
+                if (!isCancelled()) {
+                    undecided[slot] = key;
+                }
+                yield 0;
             }
-            numTotalThreadWins += winsThisGame;
-        }
+        };
+    }
 
-        Map<String, Double> allAverages = getTimeAverages(solverTimes);
-        Map<String, Double> winAverages = getTimeAverages(solverTimesWins);
-        Map<String, Double> lossAverages = getTimeAverages(solverTimesLosses);
-        Map<String, Double> avMovesOnWinThreads = getMoveAverages(wonGamesMoves);
-        Map<String, Double> avMovesOnLossThreads = getMoveAverages(lostGameMoves);
+    /**
+     * Runs the specified solver on a game.
+     * @param game the game to solve
+     * @param solverType the type of solver to use ('r', 'g', 'p', 'm', 'u', or 'x')
+     * @param random the generator used by the solver
+     * @return the number of moves made. - 1 if the game is unsolvable, + if the game is solvable.
+     */
+    static int solve(Solitaire game, char solverType, RandomGenerator random) {
+        return switch (solverType) {
+            case 'r' -> randomSolitaireSolver(game, random);
+            case 'g' -> greedyHeuristicSolitaireSolver(game);
+            case 'p' -> greedyHeuristicPrioritySolitaireSolver(game);
+            case 'm' -> monteCarloSolitaireSolver(game, NUM_SIMULATIONS, random);
+            case 'u' -> mctsSolitaireSolver(game, NUM_SIMULATIONS, random);
+            case 'x' -> exactSolitaireSolver(game);
+            default -> -1;
+        };
+    }
 
-        System.out.println("========================================");
-        System.out.println("Total wins:\t\t\t" + numTotalWins + "/" + (totalRuns));
-        System.out.println("Solvability:\t\t" + (numTotalWins * 100.0 / totalRuns) + "%");
-        System.out.println("----------------------------------------");
+    /**
+     * Returns the generator for a deal. The deck is shuffled with its first split and each thread solving the
+     * deal is given a further split, so every deal and thread has its own stream derived from SEED.
+     * @param dealIndex the index of the deal in the run
+     * @return the generator for the deal
+     */
+    static SplittableRandom getDealRandom(int dealIndex) {
+        return getDealRandom(SEED, dealIndex);
+    }
 
-        System.out.println("Timings:");
-        System.out.println("----------------------------------------");
-        System.out.println("Wins:\t\t\t" + numTotalWins);
-        outputTimeAverages(winAverages);
-        System.out.println("----------------------------------------");
+    /**
+     * Returns the generator for a deal in a run with the given seed.
+     * @param seed the seed of the run
+     * @param dealIndex the index of the deal in the run
+     * @return the generator for the deal
+     */
+    static SplittableRandom getDealRandom(long seed, int dealIndex) {
+        return new SplittableRandom(seed + 0x9E3779B97F4A7C15L * (dealIndex + 1));
+    }
 
-        System.out.println("Losses:\t\t\t" + (totalRuns - numTotalWins));
-        outputTimeAverages(lossAverages);
-        System.out.println("----------------------------------------");
+    /**
+     * Deals a game, or reads it from CORPUS if one was given.
+     * @param dealIndex the index of the deal in the run
+     * @param dealRandom the generator for the deal
+     * @return the dealt game
+     */
+    static Solitaire dealGame(int dealIndex, SplittableRandom dealRandom) {
+        SplittableRandom deckRandom = dealRandom.split();
+        // Split even when reading from a corpus, so each thread is given the same generator either way
+        if (CORPUS != null) {
+            return CORPUS.getDeal(dealIndex);
+        }
+        return new Solitaire(new Deck(deckRandom));
+    }
 
-        System.out.println("All games:\t\t" + totalRuns);
-        outputTimeAverages(allAverages);
-        System.out.println("----------------------------------------");
+    /**
+     * Returns the deal the current thread is solving in first-win mode.
+     * @return the deal, or null if the thread is not solving a deal in first-win mode
+     */
+    static DealResult getCurrentDeal() {
+        return CURRENT_DEAL.get();
+    }
 
-        if (numTotalWins > 0) {
-            System.out.println("Mean thread wins per winning game:\t" + (double) (numTotalThreadWins / numTotalWins));
-            System.out.println("----------------------------------------");
+    /**
+     * Returns whether the solver running on the current thread should stop, because the thread was interrupted
+     * or the deal it is solving was cancelled after another thread won it.
+     * @return true if the solver should stop
+     */
+    static boolean isCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
         }
-        System.out.println("Move averages in threaded games:");
-        System.out.println("----------------------------------------");
-        System.out.println("Wins:\t\t\t" + numTotalWins);
-        outputMoveAverages(avMovesOnWinThreads);
-        System.out.println("----------------------------------------");
-        System.out.println("Losses:\t\t\t" + (totalRuns - numTotalWins));
-        outputMoveAverages(avMovesOnLossThreads);
-        System.out.println("----------------------------------------");
+        DealResult deal = CURRENT_DEAL.get();
+        return deal != null && deal.isCancelled();
     }
 
-    private static void outputTimeAverages(Map<String, Double> averages) {
-        System.out.println("Mean:\t\t\t" + averages.get("Mean") + "ms");
-        System.out.println("Median:\t\t\t" + averages.get("Median") + "ms");
-        System.out.println("Min:\t\t\t" + averages.get("Min") + "ms");
-        System.out.println("Max:\t\t\t" + averages.get("Max") + "ms");
-        System.out.println("Total:\t\t\t" + averages.get("Total") + "ms");
+    /**
+     * Solves a copy of the deal on the current thread and records the result.
+     * In first-win mode, a win cancels the deal's other threads, and threads that stop, or had not started,
+     * because the deal was cancelled are recorded as cancelled rather than as losses.
+     * If a results file is being written, a record of the result is added to it.
+     * @param deal the deal to solve
+     * @param threadIndex the index of the thread among those solving the deal
+     * @param solverType the type of solver to use ('r', 'g', 'p', 'm', 'u', or 'x')
+     * @param random the generator used by the solver
+     * @param statistics the statistics the number of moves made is added to
+     */
+    static void solveDeal(DealResult deal, int threadIndex, char solverType, RandomGenerator random,
+                          RunStatistics statistics) {
+        if (FIRST_WIN && deal.isCancelled()) {
+            deal.addCancelled(threadIndex, 0);
+            writeResult(deal, threadIndex, solverType, "cancelled", 0, 0, 0);
+            deal.finishThread();
+            return;
+        }
+        deal.start();
+        try {
+            if (FIRST_WIN) {
+                CURRENT_DEAL.set(deal);
+            }
+            long[] rolloutsRun = ROLLOUTS_RUN.get();
+            rolloutsRun[0] = 0;
+            long start = System.nanoTime();
+            Solitaire game = new Solitaire(deal.getGame());
+            int result = solve(game, solverType, random);
+            long nanos = System.nanoTime() - start;
+
+            if (result <= 0 && FIRST_WIN && deal.isCancelled()) {
+                deal.addCancelled(threadIndex, -result);
+                writeResult(deal, threadIndex, solverType, "cancelled", -result, nanos, rolloutsRun[0]);
+                return;
+            }
+            boolean unknown = solverType == 'x' && result == 0;
+            deal.addResult(threadIndex, result, unknown);
+            statistics.addMoves(result, unknown);
+            if (result > 0 && FIRST_WIN) {
+                deal.cancel();
+            }
+            String outcome = result > 0 ? "won" : unknown ? "unknown" : "lost";
+            writeResult(deal, threadIndex, solverType, outcome, Math.abs(result), nanos, rolloutsRun[0]);
+        } catch (Exception e) {
+            System.err.println("[" + Thread.currentThread().getName() + "] encountered an error:");
+            e.printStackTrace();
+        } finally {
+            CURRENT_DEAL.remove();
+            deal.finishThread();
+        }
     }
 
-    private static void outputMoveAverages(Map<String, Double> averages) {
-        System.out.println("Mean:\t\t\t" + averages.get("Mean") + " moves");
-        System.out.println("Median:\t\t\t" + averages.get("Median") + " moves");
-        System.out.println("Mode:\t\t\t" + averages.get("Mode") + " moves (" + averages.get("Mode Count") + ")");
-        System.out.println("Min:\t\t\t" + averages.get("Min") + " moves");
-        System.out.println("Max:\t\t\t" + averages.get("Max") + " moves");
-        System.out.println("Total:\t\t\t" + averages.get("Total") + " moves");
+    private static void writeResult(DealResult deal, int threadIndex, char solverType, String outcome, int moves,
+                                    long nanos, long rollouts) {
+        if (RESULTS != null) {
+            RESULTS.write(SEED, deal.getDealIndex(), threadIndex, solverType, RANDOMNESS_PERCENTAGE, NUM_SIMULATIONS,
+                    outcome, moves, nanos, rollouts);
+        }
     }
 
-    public static Map<String, Double> getTimeAverages(ArrayList<Double> times) {
-        int totalRuns = times.size();
-        Map<String, Double> averages = new HashMap<>();
-
-        if (totalRuns == 0) {
-            return averages;
+    /**
+     * Writes a record for every thread of a deal restored from the progress journal or deal cache, so the results
+     * file covers every deal of the run.
+     * Only the outcomes, moves and the deal's time are kept for a restored deal, so each record's time is the
+     * deal's time and its rollouts are 0.
+     * @param deal the restored deal
+     * @param solverType the type of solver used
+     */
+    private static void writeRestoredResults(DealResult deal, char solverType) {
+        for (int i = 0; i < deal.getNumThreads(); i++) {
+            String outcome = switch (deal.getOutcome(i)) {
+                case DealResult.WON -> "won";
+                case DealResult.UNKNOWN -> "unknown";
+                case DealResult.CANCELLED -> "cancelled";
+                default -> "lost";
+            };
+            writeResult(deal, i, solverType, outcome, deal.getMoves(i), (long) (deal.getDurationMs() * 1_000_000),
+                    0);
         }
+    }
 
-        double totalTime = 0;
-        for (double time : times) {
-            totalTime += time;
+    /**
+     * Outputs the deal's number, and its board if VERBOSE is set. Nothing is output if a results file is being
+     * written, unless VERBOSE is set.
+     * @param deal the deal
+     */
+    private static void outputDeal(DealResult deal) {
+        if (VERBOSE) {
+            System.out.println("Game " + (deal.getDealIndex() + 1) + ": " + deal.getGame());
         }
+        else if (RESULTS == null) {
+            System.out.println("Game " + (deal.getDealIndex() + 1));
+        }
+    }
 
-        averages.put("Total", totalTime);
+    /**
+     * Returns whether a deal was finished by an earlier run being resumed, so it does not need to be solved.
+     * @param dealIndex the index of the deal
+     * @return true if the deal is recorded in the progress journal
+     */
+    private static boolean isCompleted(int dealIndex) {
+        return JOURNAL != null && JOURNAL.isCompleted(dealIndex);
+    }
 
-        averages.put("Mean", Math.round(totalTime / totalRuns * 100.0) / 100.0);
-        averages.put("Max", Collections.max(times));
-        averages.put("Min", Collections.min(times));
+    /**
+     * Returns a deal's result from the deal cache, if a run with the same settings has solved it.
+     * @param dealIndex the index of the deal
+     * @param game the dealt game
+     * @return the finished deal, or null if it needs to be solved
+     */
+    private static DealResult getCachedDeal(int dealIndex, Solitaire game) {
+        if (CACHE == null) {
+            return null;
+        }
+        return CACHE.get(DealCache.getKey(game, dealIndex, CACHE_CONFIGURATION), dealIndex, game);
+    }
 
-        Collections.sort(times);
-        if (totalRuns % 2 == 0) {
-            double mid1 = times.get((totalRuns / 2) - 1);
-            double mid2 = times.get(totalRuns / 2);
-            double median = (mid1 + mid2) / 2.0;
-            averages.put("Median", Math.round(median * 100.0) / 100.0);
+    /**
+     * Adds a finished deal to the statistics and records it in the progress journal and deal cache, if they are
+     * being kept.
+     * @param deal the finished deal
+     * @param statistics the statistics the deal is added to
+     * @param solverType the type of solver used, for the results records of a restored deal
+     */
+    private static void finishDeal(DealResult deal, RunStatistics statistics, char solverType) {
+        if (deal.isRestored()) {
+            statistics.addRestoredDeal(deal, true);
+            writeRestoredResults(deal, solverType);
         }
         else {
-            double median = times.get(totalRuns / 2);
-            averages.put("Median", Math.round(median * 100.0) / 100.0);
+            statistics.addDeal(deal);
+            if (CACHE != null) {
+                try {
+                    CACHE.put(DealCache.getKey(deal.getGame(), deal.getDealIndex(), CACHE_CONFIGURATION), deal);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not write to the deal cache", e);
+                }
+            }
+        }
+        if (JOURNAL != null) {
+            try {
+                JOURNAL.append(deal);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write to the progress journal", e);
+            }
         }
-        return averages;
     }
 
-    public static Map<String, Double> getMoveAverages(List<Double> moves) {
-        int totalRuns = moves.size();
-        Map<Double, Integer> modeMap = new HashMap<>();
-        Map<String, Double> averages = new HashMap<>();
-
-        if (totalRuns == 0) {
-            return averages;
+    /**
+     * Runs the specified solver for a given number of runs.
+     * Each game is run 'numThreads' times in parallel.
+     * Outputs the results, including the number of wins, time taken, and move averages.
+     * @param numRuns the number of runs to perform
+     * @param numThreads the number of threads to use
+     * @param solverType the type of solver to use ('r', 'g', 'p', 'm', 'u', or 'x')
+     */
+    public static void runSolver(int numRuns, int numThreads, char solverType) {
+        RunStatistics statistics = new RunStatistics(solverType, FIRST_WIN, VERBOSE || RESULTS == null);
+        if (JOURNAL != null) {
+            for (DealResult deal : JOURNAL.getCompletedDeals()) {
+                if (deal.getDealIndex() < numRuns) {
+                    statistics.addRestoredDeal(deal, false);
+                    writeRestoredResults(deal, solverType);
+                }
+            }
         }
+        if (SHARED_POOL) {
+            runSolverSharedPool(numRuns, numThreads, solverType, statistics);
+        }
+        else if (VIRTUAL_THREADS) {
+            runSolverVirtualThreads(numRuns, numThreads, solverType, statistics);
+        }
+        else {
+            for (int i = 0; i < numRuns; i++) {
+                if (isCompleted(i)) {
+                    continue;
+                }
+                SplittableRandom dealRandom = getDealRandom(i);
+                Solitaire game = dealGame(i, dealRandom);
+                DealResult cached = getCachedDeal(i, game);
+                if (cached != null) {
+                    outputDeal(cached);
+                    finishDeal(cached, statistics, solverType);
+                    continue;
+                }
+                DealResult deal = new DealResult(i, game, numThreads);
+                deal.start();
+                outputDeal(deal);
+
+                ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+                for (int j = 0; j < numThreads; j++) {
+                    SplittableRandom threadRandom = dealRandom.split();
+                    int threadIndex = j;
+                    executor.submit(() -> solveDeal(deal, threadIndex, solverType, threadRandom, statistics));
+                }
+                executor.shutdown();
+                try {
+                    executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException ie) {
+                    executor.shutdownNow();
+                    Thread.currentThread().interrupt();
+                }
+                finishDeal(deal, statistics, solverType);
+            }
+        }
+        statistics.output();
+    }
 
-        double totalMoves = 0;
-        for (double move : moves) {
-            totalMoves += move;
+    /**
+     * Runs the specified solver for a given number of runs on one work-stealing pool shared by every deal.
+     * Each deal's threads are queued as soon as the previous deal's have been, so idle workers start on the next
+     * deal while the slowest threads of the previous one finish. At most QUEUED_PER_THREAD tasks per worker are
+     * queued at once, so deals are only dealt shortly before they are solved. Deals are output in order as they
+     * finish.
+     * @param numRuns the number of runs to perform
+     * @param numThreads the number of threads to solve each deal with, and the number of workers in the pool
+     * @param solverType the type of solver to use ('r', 'g', 'p', 'm', 'u', or 'x')
+     * @param statistics the statistics each finished deal is added to
+     */
+    private static void runSolverSharedPool(int numRuns, int numThreads, char solverType, RunStatistics statistics) {
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        Semaphore queued = new Semaphore(numThreads * QUEUED_PER_THREAD);
+        ArrayDeque<DealResult> pending = new ArrayDeque<>();
+
+        for (int i = 0; i < numRuns; i++) {
+            if (isCompleted(i)) {
+                continue;
+            }
+            SplittableRandom dealRandom = getDealRandom(i);
+            Solitaire game = dealGame(i, dealRandom);
+            DealResult cached = getCachedDeal(i, game);
+            if (cached != null) {
+                pending.add(cached);
+                outputFinishedDeals(pending, statistics, false, solverType);
+                continue;
+            }
+            DealResult deal = new DealResult(i, game, numThreads);
+            pending.add(deal);
 
-            if (!modeMap.containsKey(move)) {
-                modeMap.put(move, 1);
-            } else {
-                modeMap.put(move, (modeMap.get(move) + 1));
+            for (int j = 0; j < numThreads; j++) {
+                SplittableRandom threadRandom = dealRandom.split();
+                int threadIndex = j;
+                queued.acquireUninterruptibly();
+                pool.execute(() -> {
+                    try {
+                        solveDeal(deal, threadIndex, solverType, threadRandom, statistics);
+                    } finally {
+                        queued.release();
+                    }
+                });
             }
+            outputFinishedDeals(pending, statistics, false, solverType);
         }
+        outputFinishedDeals(pending, statistics, true, solverType);
+        pool.shutdown();
+    }
 
-        Double mode = null;
-        int maxCount = 0;
-
-        for (Map.Entry<Double, Integer> entry : modeMap.entrySet()) {
-            if (entry.getValue() > maxCount) {
-                maxCount = entry.getValue();
-                mode = entry.getKey();
+    /**
+     * Runs the specified solver for a given number of runs, solving each game on 'numThreads' virtual threads.
+     * Each virtual thread holds one of CPU_PERMITS while it solves, so no more threads solve at once than there
+     * are CPUs, however many threads are asked for.
+     * @param numRuns the number of runs to perform
+     * @param numThreads the number of virtual threads to solve each deal with
+     * @param solverType the type of solver to use ('r', 'g', 'p', 'm', 'u', or 'x')
+     * @param statistics the statistics each finished deal is added to
+     */
+    private static void runSolverVirtualThreads(int numRuns, int numThreads, char solverType,
+                                                RunStatistics statistics) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < numRuns; i++) {
+                if (isCompleted(i)) {
+                    continue;
+                }
+                SplittableRandom dealRandom = getDealRandom(i);
+                Solitaire game = dealGame(i, dealRandom);
+                DealResult cached = getCachedDeal(i, game);
+                if (cached != null) {
+                    outputDeal(cached);
+                    finishDeal(cached, statistics, solverType);
+                    continue;
+                }
+                DealResult deal = new DealResult(i, game, numThreads);
+                deal.start();
+                outputDeal(deal);
+
+                for (int j = 0; j < numThreads; j++) {
+                    SplittableRandom threadRandom = dealRandom.split();
+                    int threadIndex = j;
+                    executor.submit(() -> {
+                        CPU_PERMITS.acquireUninterruptibly();
+                        try {
+                            solveDeal(deal, threadIndex, solverType, threadRandom, statistics);
+                        } finally {
+                            CPU_PERMITS.release();
+                        }
+                    });
+                }
+                deal.awaitDone();
+                finishDeal(deal, statistics, solverType);
             }
         }
-        averages.put("Mode", mode);
-        averages.put("Mode Count", (double) maxCount);
-        averages.put("Total", totalMoves);
+    }
 
-        averages.put("Mean", Math.round(totalMoves / totalRuns * 100.0) / 100.0);
-        averages.put("Max", Collections.max(moves));
-        averages.put("Min", Collections.min(moves));
+    /**
+     * Outputs and removes the deals at the front of the queue that have finished, keeping them in deal order.
+     * @param pending the deals not yet output, in deal order
+     * @param statistics the statistics each finished deal is added to
+     * @param wait true to wait for every deal in the queue to finish
+     * @param solverType the type of solver used
+     */
+    private static void outputFinishedDeals(ArrayDeque<DealResult> pending, RunStatistics statistics, boolean wait,
+                                            char solverType) {
+        while (!pending.isEmpty() && (wait || pending.peek().isDone())) {
+            DealResult deal = pending.poll();
+            deal.awaitDone();
+            outputDeal(deal);
+            finishDeal(deal, statistics, solverType);
+        }
+    }
 
-        Collections.sort(moves);
-        if (totalRuns % 2 == 0) {
-            double mid1 = moves.get((totalRuns / 2) - 1);
-            double mid2 = moves.get(totalRuns / 2);
-            double median = (mid1 + mid2) / 2.0;
-            averages.put("Median", Math.round(median * 100.0) / 100.0);
+    /**
+     * Returns the settings that decide a run's results, so a progress journal is only resumed by the same run.
+     * @param numThreads the number of threads solving each deal
+     * @param solverType the type of solver used
+     * @return the settings, as one line
+     */
+    static String getConfiguration(int numThreads, char solverType) {
+        String configuration = "seed=" + SEED + " solver=" + solverType + " threads=" + numThreads +
+                " first-win=" + FIRST_WIN;
+        if (solverType == 'm' || solverType == 'u') {
+            configuration += " randomness=" + RANDOMNESS_PERCENTAGE + " simulations=" + NUM_SIMULATIONS;
         }
-        else {
-            double median = moves.get(totalRuns / 2);
-            averages.put("Median", Math.round(median * 100.0) / 100.0);
+        if (solverType == 'm' && SUCCESSIVE_HALVING) {
+            configuration += " rollout-budget=halving";
+        }
+        if (solverType == 'm' && VIRTUAL_ROLLOUTS) {
+            configuration += " rollouts=virtual";
         }
-        return averages;
+        else if (solverType == 'm' && ROLLOUT_POOL != null) {
+            configuration += " rollouts=pool";
+        } // Pooled and virtual simulations seed each leaf separately, so give different results to sequential ones
+        if (solverType == 'u') {
+            configuration += " exploration=" + UCT_EXPLORATION;
+        }
+        if (solverType == 'x') {
+            configuration += " node-limit=" + EXACT_NODE_LIMIT + " time-limit=" + EXACT_TIME_LIMIT_MS;
+        }
+        else if (ENDGAME_THRESHOLD > 0) {
+            configuration += " endgame=" + ENDGAME_THRESHOLD + " endgame-node-limit=" + ENDGAME_NODE_LIMIT;
+        }
+        if (CORPUS != null) {
+            configuration += " corpus-seed=" + CORPUS.getSeed();
+        }
+        return configuration;
+    }
+
+    /**
+     * Splits the command line arguments into positional arguments and '--name=value' options.
+     * An option given without a value, such as '--resume', is stored with the value "true".
+     * @param args command line arguments
+     * @param positional list the positional arguments are added to, in order
+     * @return the options, keyed by name without the leading '--'
+     */
+    static Map<String, String> parseOptions(String[] args, List<String> positional) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                int equals = arg.indexOf('=');
+                if (equals == -1) {
+                    options.put(arg.substring(2), "true");
+                } else {
+                    options.put(arg.substring(2, equals), arg.substring(equals + 1));
+                }
+            } else {
+                positional.add(arg);
+            }
+        }
+        return options;
     }
 
     /**
      * Main method to run the Solitaire solvers.
      * Accepts command line arguments for number of threads, number of runs, and solver type.
-     * If the solver type is 'm', it also accepts randomness percentage and number of simulations.
+     * If the solver type is 'm' or 'u', it also accepts randomness percentage and number of simulations.
+     * Optional '--name=value' arguments may be given anywhere:
+     * '--rollout-threads=n' splits each Monte Carlo decision's simulations across a pool of n threads.
+     * '--executor=fixed|shared|virtual' chooses how each deal's threads are run: a new fixed pool per deal (the
+     * default), one long-lived work-stealing pool shared by every deal, or virtual threads bounded by the CPU count.
+     * '--shared-pool' is the same as '--executor=shared'.
+     * '--rollout-threads=virtual' runs each Monte Carlo decision's simulations on virtual threads, and can only be
+     * used with '--executor=virtual'.
+     * '--first-win' stops a deal's other threads once one wins it, and times won deals to the first win.
+     * '--results=file' writes a record for every thread solving every deal to a CSV file, or a JSON Lines file if
+     * it ends in '.jsonl', gzip-compressed if it ends in '.gz'. Deals are then only output with '--verbose'.
+     * '--verbose' outputs every deal's board.
+     * '--corpus=file' reads the deals from a corpus written by DealCorpus instead of dealing them.
+     * '--journal=file' records every finished deal in a progress journal. With '--resume', the deals already in
+     * the journal are not solved again, and their results are included in the summary. Unless '--seed' is given,
+     * the seed is read back from the journal.
+     * '--cache=file' reuses the results of deals solved with the same settings by earlier runs, keeping at most
+     * '--cache-size=n' results.
+     * '--seed=n' seeds the deals and solvers so the run can be repeated exactly.
+     * '--node-limit=n', '--time-limit=ms' and '--table-bits=n' bound the exact solver's search.
+     * '--rollout-budget=uniform|halving' gives every Monte Carlo candidate move numSimulations simulations (the
+     * default), or shares the same total out by successive halving.
+     * '--exploration=c' sets the UCB1 exploration constant of the tree search solver.
+     * '--endgame=n' decides games by exact search, in the solvers and their simulations, once fewer than n cards
+     * are face down or in the stock. '--endgame-node-limit=n' bounds each search, which also gives up after
+     * ENDGAME_TIME_LIMIT_MS.
      * @param args command line arguments
      */
     public static void main(String[] args) {
@@ -484,6 +1060,10 @@ public class Run {
         int NUM_RUNS;
         char SOLVER_TYPE;
 
+        List<String> positional = new ArrayList<>();
+        Map<String, String> options = parseOptions(args, positional);
+        args = positional.toArray(new String[0]);
+
         try {
             NUM_THREADS = Integer.parseInt(args[0]);
             NUM_RUNS = Integer.parseInt(args[1]);
@@ -492,14 +1072,127 @@ public class Run {
             throw new InvalidNumArgumentsException("Minimum 3 arguments required: <numThreads> <numRuns> <solverType>" +
                     " You only provided " + args.length + ".");
         }
-        if (SOLVER_TYPE == 'm') {
+        if (SOLVER_TYPE == 'm' || SOLVER_TYPE == 'u') {
             try {
                 RANDOMNESS_PERCENTAGE = Integer.parseInt(args[3]);
                 NUM_SIMULATIONS = Integer.parseInt(args[4]);
             } catch (Exception e) {
-                throw new InvalidNumArgumentsException("5 arguments required for solverType 'm': <numThreads> " +
-                        "<numRuns> <solverType> <randomnessPercentage> <numSimulations> You only provided " +
-                        args.length + ".");
+                throw new InvalidNumArgumentsException("5 arguments required for solverType '" + SOLVER_TYPE +
+                        "': <numThreads> <numRuns> <solverType> <randomnessPercentage> <numSimulations> You only " +
+                        "provided " + args.length + ".");
+            }
+        }
+        if (options.containsKey("seed")) {
+            SEED = Long.parseLong(options.get("seed"));
+        }
+        if (options.containsKey("node-limit")) {
+            EXACT_NODE_LIMIT = Long.parseLong(options.get("node-limit"));
+        }
+        if (options.containsKey("time-limit")) {
+            EXACT_TIME_LIMIT_MS = Long.parseLong(options.get("time-limit"));
+        }
+        if (options.containsKey("rollout-budget")) {
+            switch (options.get("rollout-budget")) {
+                case "uniform" -> SUCCESSIVE_HALVING = false;
+                case "halving" -> SUCCESSIVE_HALVING = true;
+                default -> throw new InvalidOptionException("--rollout-budget must be 'uniform' or 'halving'. " +
+                        "You provided '" + options.get("rollout-budget") + "'.");
+            }
+        }
+        if (options.containsKey("endgame")) {
+            ENDGAME_THRESHOLD = Integer.parseInt(options.get("endgame"));
+        }
+        if (options.containsKey("endgame-node-limit")) {
+            ENDGAME_NODE_LIMIT = Long.parseLong(options.get("endgame-node-limit"));
+        }
+        if (options.containsKey("exploration")) {
+            UCT_EXPLORATION = Double.parseDouble(options.get("exploration"));
+        }
+        if (options.containsKey("table-bits")) {
+            EXACT_TABLE_BITS = Integer.parseInt(options.get("table-bits"));
+        }
+        if (options.containsKey("shared-pool")) {
+            SHARED_POOL = Boolean.parseBoolean(options.get("shared-pool"));
+        }
+        if (options.containsKey("corpus")) {
+            try {
+                CORPUS = new DealCorpus(Path.of(options.get("corpus")));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read deal corpus " + options.get("corpus"), e);
+            }
+            if (CORPUS.size() < NUM_RUNS) {
+                throw new InvalidOptionException("The deal corpus only holds " + CORPUS.size() + " deals, " +
+                        NUM_RUNS + " runs were asked for.");
+            }
+        }
+        if (options.containsKey("verbose")) {
+            VERBOSE = Boolean.parseBoolean(options.get("verbose"));
+        }
+        if (options.containsKey("results")) {
+            try {
+                RESULTS = new ResultsWriter(Path.of(options.get("results")));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not create results file " + options.get("results"), e);
+            }
+        }
+        if (options.containsKey("first-win")) {
+            FIRST_WIN = Boolean.parseBoolean(options.get("first-win"));
+        }
+        if (options.containsKey("executor")) {
+            switch (options.get("executor")) {
+                case "fixed" -> SHARED_POOL = false;
+                case "shared" -> SHARED_POOL = true;
+                case "virtual" -> {
+                    SHARED_POOL = false;
+                    VIRTUAL_THREADS = true;
+                }
+                default -> throw new InvalidOptionException("--executor must be 'fixed', 'shared' or 'virtual'. " +
+                        "You provided '" + options.get("executor") + "'.");
+            }
+        }
+        if ("virtual".equals(options.get("rollout-threads"))) {
+            if (!VIRTUAL_THREADS) {
+                throw new InvalidOptionException("--rollout-threads=virtual can only be used with " +
+                        "--executor=virtual.");
+            }
+            VIRTUAL_ROLLOUTS = true;
+        }
+        else if (options.containsKey("rollout-threads")) {
+            ROLLOUT_POOL = new ForkJoinPool(Integer.parseInt(options.get("rollout-threads")));
+        }
+
+        if (options.containsKey("resume") && !options.containsKey("journal")) {
+            throw new InvalidOptionException("--resume needs the --journal=file to resume from.");
+        }
+        if (options.containsKey("journal")) {
+            Path journalPath = Path.of(options.get("journal"));
+            boolean resume = Boolean.parseBoolean(options.getOrDefault("resume", "false"));
+            try {
+                if (!resume && Files.exists(journalPath) && Files.size(journalPath) > 0) {
+                    throw new InvalidOptionException(journalPath + " already exists. Add --resume to continue " +
+                            "the run it records, or remove it to start again.");
+                }
+                if (resume && !options.containsKey("seed") && Files.exists(journalPath)) {
+                    String configuration = ProgressJournal.readConfiguration(journalPath);
+                    if (configuration != null && configuration.startsWith("seed=")) {
+                        SEED = Long.parseLong(configuration.substring("seed=".length(), configuration.indexOf(' ')));
+                    }
+                } // A run started without --seed chose its seed at random, so it is read back from the journal
+                JOURNAL = new ProgressJournal(journalPath, getConfiguration(NUM_THREADS, SOLVER_TYPE), resume);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open progress journal " + journalPath, e);
+            }
+        }
+
+        if (options.containsKey("cache-size")) {
+            CACHE_SIZE = Integer.parseInt(options.get("cache-size"));
+        }
+        if (options.containsKey("cache")) {
+            CACHE_CONFIGURATION = getConfiguration(NUM_THREADS, SOLVER_TYPE);
+            try {
+                CACHE = new DealCache(Path.of(options.get("cache")), CACHE_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open deal cache " + options.get("cache"), e);
             }
         }
 
@@ -508,18 +1201,87 @@ public class Run {
             case 'g' -> "Greedy Heuristic Solver";
             case 'p' -> "Greedy Heuristic Solver with Priority";
             case 'm' -> "Monte Carlo Solver";
+            case 'u' -> "Monte Carlo Tree Search Solver";
+            case 'x' -> "Exact Solver";
             default -> "";
         };
 
         System.out.println("Solver: " + solver);
         System.out.println("Num threads: " + NUM_THREADS);
         System.out.println("Num runs: " + NUM_RUNS);
+        System.out.println("Seed: " + SEED);
+        if (CORPUS != null) {
+            System.out.println("Corpus: " + options.get("corpus") + " (" + CORPUS.size() + " deals, seed " +
+                    CORPUS.getSeed() + ")");
+        }
+        if (SHARED_POOL) {
+            System.out.println("Executor: shared pool");
+        }
+        else if (VIRTUAL_THREADS) {
+            System.out.println("Executor: virtual threads (" + CPU_PERMITS.availablePermits() + " at once)");
+        }
+        if (FIRST_WIN) {
+            System.out.println("Stopping each game at its first win");
+        }
+        if (SOLVER_TYPE == 'u') {
+            System.out.println("Num simulations: " + NUM_SIMULATIONS);
+            System.out.println("Randomness percentage: " + RANDOMNESS_PERCENTAGE + "%");
+            System.out.println("Exploration: " + UCT_EXPLORATION);
+        }
         if (SOLVER_TYPE == 'm') {
             System.out.println("Num simulations: " + NUM_SIMULATIONS);
             System.out.println("Randomness percentage: " + RANDOMNESS_PERCENTAGE + "%");
+            if (SUCCESSIVE_HALVING) {
+                System.out.println("Rollout budget: successive halving");
+            }
+            if (ROLLOUT_POOL != null) {
+                System.out.println("Rollout threads: " + ROLLOUT_POOL.getParallelism());
+            }
+            else if (VIRTUAL_ROLLOUTS) {
+                System.out.println("Rollout threads: virtual");
+            }
+        }
+        if (SOLVER_TYPE == 'x') {
+            System.out.println("Node limit: " + EXACT_NODE_LIMIT);
+            System.out.println("Time limit: " + EXACT_TIME_LIMIT_MS + "ms");
+        }
+        else if (ENDGAME_THRESHOLD > 0) {
+            System.out.println("Endgame: under " + ENDGAME_THRESHOLD + " unseen cards, " + ENDGAME_NODE_LIMIT +
+                    " node limit");
+        }
+        if (JOURNAL != null && !JOURNAL.getCompletedDeals().isEmpty()) {
+            System.out.println("Resuming: " + JOURNAL.getCompletedDeals().size() + " games already solved");
+        }
+        if (CACHE != null) {
+            System.out.println("Cache: " + options.get("cache") + " (" + CACHE.size() + " games cached)");
         }
         System.out.println();
 
         runSolver(NUM_RUNS, NUM_THREADS, SOLVER_TYPE);
+        if (JOURNAL != null) {
+            try {
+                JOURNAL.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write to the progress journal", e);
+            }
+        }
+        if (CACHE != null) {
+            try {
+                CACHE.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write to the deal cache", e);
+            }
+        }
+        if (RESULTS != null) {
+            try {
+                RESULTS.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write results file " + options.get("results"), e);
+            }
+            System.out.println("Results written to " + options.get("results"));
+        }
+        if (ROLLOUT_POOL != null) {
+            ROLLOUT_POOL.shutdown();
+        }
     }
 }
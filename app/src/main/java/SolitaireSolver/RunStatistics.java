@@ -0,0 +1,214 @@
+package SolitaireSolver;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * RunStatistics class collecting the results of every deal in a run and outputting the summary.
+ * Move counts are added by the solving threads as they finish, while deals are added by the thread running
+ * the solver once every thread solving them is done.
+ * Values are summarised in histograms, so memory does not grow with the number of deals. A solving thread takes
+ * a recorder from a lock-free queue, records into it and puts it back, so no two threads share a recorder and
+ * there are only as many recorders as threads solving at once. Recorders are merged when the summary is output.
+ * Recorders are pooled rather than kept per thread because with the virtual-thread executor every thread solves
+ * a single game, so a recorder per thread would grow with the number of games.
+ * The deal counters are plain fields, as only the thread running the solver adds deals.
+ */
+public class RunStatistics {
+    private final char solverType;
+    private final boolean firstWin;
+    private final boolean outputDeals;
+    private int numTotalWins;
+    private int numTotalThreadWins;
+    private int numTotalUnknown;
+    private int totalRuns;
+    private final Histogram solverTimes = new Histogram();
+    private final Histogram solverTimesWins = new Histogram();
+    private final Histogram solverTimesLosses = new Histogram();
+
+    private final ConcurrentLinkedQueue<Recorder> freeRecorders = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Recorder> recorders = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Recorder class holding the move counts recorded by one thread at a time.
+     */
+    private static class Recorder {
+        private final Histogram wonGamesMoves = new Histogram();
+        private final Histogram lostGameMoves = new Histogram();
+    }
+
+    /**
+     * Constructor for RunStatistics.
+     * @param solverType the type of solver used ('r', 'g', 'p', 'm', 'u', or 'x')
+     * @param firstWin true if each deal is cancelled once a thread wins it, so won deals are timed to the
+     * first win
+     * @param outputDeals true to output the result of each deal as it is added
+     */
+    public RunStatistics(char solverType, boolean firstWin, boolean outputDeals) {
+        this.solverType = solverType;
+        this.firstWin = firstWin;
+        this.outputDeals = outputDeals;
+    }
+
+    /**
+     * Records the number of moves a thread made. Safe to call from any thread.
+     * @param result the number of moves made. + if the game was solved
+     * @param unknown true if the solver gave up before deciding the game
+     */
+    public void addMoves(int result, boolean unknown) {
+        if (result <= 0 && unknown) {
+            return;
+        }
+        Recorder recorder = freeRecorders.poll();
+        if (recorder == null) {
+            recorder = new Recorder();
+            recorders.add(recorder);
+        }
+        if (result > 0) {
+            recorder.wonGamesMoves.record(result);
+        }
+        else {
+            recorder.lostGameMoves.record(-result);
+        }
+        freeRecorders.add(recorder);
+    }
+
+    /**
+     * Records the result of a finished deal, and outputs it if deals are being output.
+     * @param deal the deal, once every thread solving it is done
+     */
+    public void addDeal(DealResult deal) {
+        double durationMs = recordDeal(deal);
+        int winsThisGame = deal.getNumWins();
+
+        if (outputDeals) {
+            System.out.println("Wins: " + winsThisGame + " out of " + deal.getNumThreads() + " games.");
+            if (deal.getNumCancelled() > 0) {
+                System.out.println("Cancelled: " + deal.getNumCancelled() + " games after the first win.");
+            }
+            System.out.println("Time taken: " + durationMs + "ms\n");
+        }
+    }
+
+    /**
+     * Records the time taken and result of a finished deal.
+     * @param deal the finished deal
+     * @return the time taken recorded for the deal, in milliseconds
+     */
+    private double recordDeal(DealResult deal) {
+        double durationMs = firstWin ? deal.getTimeToFirstWinMs() : deal.getDurationMs();
+        solverTimes.record((long) durationMs);
+        int winsThisGame = deal.getNumWins();
+
+        if (winsThisGame > 0) {
+            numTotalWins++;
+            solverTimesWins.record((long) durationMs);
+        }
+        else {
+            solverTimesLosses.record((long) durationMs);
+            if (deal.getNumUnknown() > 0) {
+                numTotalUnknown++;
+            }
+        }
+        numTotalThreadWins += winsThisGame;
+        totalRuns++;
+        return durationMs;
+    }
+
+    /**
+     * Records a deal finished by an earlier run, including the moves made by each of its threads.
+     * @param deal the deal, restored from a progress journal or cache
+     * @param output true to output the deal as addDeal does
+     */
+    public void addRestoredDeal(DealResult deal, boolean output) {
+        for (int i = 0; i < deal.getNumThreads(); i++) {
+            byte outcome = deal.getOutcome(i);
+            if (outcome == DealResult.WON) {
+                addMoves(deal.getMoves(i), false);
+            }
+            else if (outcome != DealResult.CANCELLED) {
+                addMoves(-deal.getMoves(i), outcome == DealResult.UNKNOWN);
+            }
+        }
+        if (output) {
+            addDeal(deal);
+        }
+        else {
+            recordDeal(deal);
+        }
+    }
+
+    /**
+     * Outputs the summary of every deal added, including the number of wins, time taken, and move averages.
+     */
+    public void output() {
+        Histogram wonGamesMoves = new Histogram();
+        Histogram lostGameMoves = new Histogram();
+        for (Recorder recorder : recorders) {
+            wonGamesMoves.add(recorder.wonGamesMoves);
+            lostGameMoves.add(recorder.lostGameMoves);
+        }
+
+        Map<String, Double> allAverages = solverTimes.getAverages();
+        Map<String, Double> winAverages = solverTimesWins.getAverages();
+        Map<String, Double> lossAverages = solverTimesLosses.getAverages();
+        Map<String, Double> avMovesOnWinThreads = wonGamesMoves.getAverages();
+        Map<String, Double> avMovesOnLossThreads = lostGameMoves.getAverages();
+
+        System.out.println("========================================");
+        System.out.println("Total wins:\t\t\t" + numTotalWins + "/" + (totalRuns));
+        System.out.println("Solvability:\t\t" + (numTotalWins * 100.0 / totalRuns) + "%");
+        if (solverType == 'x') {
+            System.out.println("Unknown:\t\t\t" + numTotalUnknown + "/" + totalRuns + " (search limit reached)");
+        }
+        System.out.println("----------------------------------------");
+
+        System.out.println("Timings:");
+        System.out.println("----------------------------------------");
+        System.out.println("Wins:\t\t\t" + numTotalWins);
+        outputTimeAverages(winAverages);
+        System.out.println("----------------------------------------");
+
+        System.out.println("Losses:\t\t\t" + (totalRuns - numTotalWins));
+        outputTimeAverages(lossAverages);
+        System.out.println("----------------------------------------");
+
+        System.out.println("All games:\t\t" + totalRuns);
+        outputTimeAverages(allAverages);
+        System.out.println("----------------------------------------");
+
+        if (numTotalWins > 0) {
+            System.out.println("Mean thread wins per winning game:\t" + (double) (numTotalThreadWins / numTotalWins));
+            System.out.println("----------------------------------------");
+        }
+        System.out.println("Move averages in threaded games:");
+        System.out.println("----------------------------------------");
+        System.out.println("Wins:\t\t\t" + numTotalWins);
+        outputMoveAverages(avMovesOnWinThreads);
+        System.out.println("----------------------------------------");
+        System.out.println("Losses:\t\t\t" + (totalRuns - numTotalWins));
+        outputMoveAverages(avMovesOnLossThreads);
+        System.out.println("----------------------------------------");
+    }
+
+    private static void outputTimeAverages(Map<String, Double> averages) {
+        System.out.println("Mean:\t\t\t" + averages.get("Mean") + "ms");
+        System.out.println("Median:\t\t\t" + averages.get("Median") + "ms");
+        System.out.println("P90:\t\t\t" + averages.get("P90") + "ms");
+        System.out.println("P99:\t\t\t" + averages.get("P99") + "ms");
+        System.out.println("Min:\t\t\t" + averages.get("Min") + "ms");
+        System.out.println("Max:\t\t\t" + averages.get("Max") + "ms");
+        System.out.println("Total:\t\t\t" + averages.get("Total") + "ms");
+    }
+
+    private static void outputMoveAverages(Map<String, Double> averages) {
+        System.out.println("Mean:\t\t\t" + averages.get("Mean") + " moves");
+        System.out.println("Median:\t\t\t" + averages.get("Median") + " moves");
+        System.out.println("P90:\t\t\t" + averages.get("P90") + " moves");
+        System.out.println("P99:\t\t\t" + averages.get("P99") + " moves");
+        System.out.println("Mode:\t\t\t" + averages.get("Mode") + " moves (" + averages.get("Mode Count") + ")");
+        System.out.println("Min:\t\t\t" + averages.get("Min") + " moves");
+        System.out.println("Max:\t\t\t" + averages.get("Max") + " moves");
+        System.out.println("Total:\t\t\t" + averages.get("Total") + " moves");
+    }
+}
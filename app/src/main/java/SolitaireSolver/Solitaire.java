@@ -1,10 +1,10 @@
 package SolitaireSolver;
 
 import java.util.*;
+import java.util.random.RandomGenerator;
 
-import SolitaireSolver.Exceptions.EmptyStockException;
+import SolitaireSolver.Exceptions.InvalidColourException;
 import SolitaireSolver.Exceptions.InvalidMoveException;
-import SolitaireSolver.Exceptions.InvalidSuitException;
 
 /**
  * Solitaire class representing the game of Solitaire.
@@ -12,10 +12,25 @@ import SolitaireSolver.Exceptions.InvalidSuitException;
  * and provides methods for dealing cards, making moves, and checking game state.
  */
 public class Solitaire {
-    Stack<Card> deck;
+    CardStack deck;
     Pile[] piles;
     Foundation foundation;
     Stock stock;
+    long stateHash;
+    long cardHash;
+    // XOR of the stock and foundation keys of the cards outside the piles
+    long[] pileHashes;
+    // XOR of the keys of each pile's cards. stateHash is cardHash XOR the sum of the mixed pile hashes
+    byte[] locations;
+    // Location of each card, indexed by id. 7: Stock, 0-6: Piles
+    long hiddenCards;
+    // Bit per card id that is face down in a pile
+    long topCards;
+    // Bit per card id on top of a pile's build stack
+    int emptyPiles;
+    // Bit per pile with no cards
+    int[] acceptingPiles = new int[15 * 2];
+    // Bit per pile whose top card a card can be built on, indexed by the card's rank * 2 + (black ? 1 : 0)
 
     /**
      * Constructor for Solitaire.
@@ -26,17 +41,24 @@ public class Solitaire {
         this.deck = deck.getDeck();
         piles = new Pile[]{new Pile(), new Pile(), new Pile(), new Pile(), new Pile(), new Pile(), new Pile()};
         foundation = new Foundation();
+        locations = new byte[Zobrist.NUM_CARDS];
 
         this.dealCards();
 
-        ArrayList<Card> newDeck = new ArrayList<>(this.deck);
+        ArrayList<Card> newDeck = this.deck.toList();
         Collections.reverse(newDeck);
 
         stock = new Stock(newDeck);
+        for (Card card : newDeck) {
+            locations[card.getId()] = 7;
+        }
+        rehash();
+        rebuildCardMasks();
     }
 
     /**
      * Deep copy constructor for Solitaire.
+     * Cards are immutable and shared between games, so this copies the stacks and the location table only.
      * @param other the Solitaire game to copy
      */
     public Solitaire(Solitaire other) {
@@ -48,13 +70,98 @@ public class Solitaire {
         }
 
         this.stock = new Stock(other.stock);
+        this.stateHash = other.stateHash;
+        this.cardHash = other.cardHash;
+        this.pileHashes = other.pileHashes.clone();
+        this.locations = other.locations.clone();
+        this.hiddenCards = other.hiddenCards;
+        this.topCards = other.topCards;
+        this.emptyPiles = other.emptyPiles;
+        this.acceptingPiles = other.acceptingPiles.clone();
+    }
+
+    /**
+     * Recomputes the state hash from the cards in the piles, stock and foundation.
+     * makeMove and unmakeMove keep it up to date, so this is only needed when the cards are set directly.
+     */
+    public void rehash() {
+        pileHashes = new long[piles.length];
+        for (int i = 0; i < piles.length; i++) {
+            pileHashes[i] = Zobrist.pileHash(piles[i]);
+        }
+        cardHash = Zobrist.cardHash(this);
+        stateHash = Zobrist.hash(this);
+    }
+
+    /**
+     * Recomputes the hidden card, top card and empty pile bitmasks, and the piles accepting each card, from the
+     * piles.
+     * makeMove and unmakeMove keep them up to date, so this is only needed when the piles are set directly.
+     */
+    public void rebuildCardMasks() {
+        hiddenCards = 0;
+        topCards = 0;
+        emptyPiles = 0;
+        Arrays.fill(acceptingPiles, 0);
+        for (int i = 0; i < piles.length; i++) {
+            for (Card card : piles[i].getHiddenCards()) {
+                hiddenCards |= 1L << card.getId();
+            }
+            addTopCard(i);
+        }
+    }
+
+    /**
+     * Replaces the old top cards of the piles a move changed with their new top cards.
+     * Both old top cards are removed before either new one is added, as a card can be the top of both.
+     * @param srcNum the pile the move took cards from, or -1
+     * @param srcTop the top card of the source pile before the move, or null
+     * @param dstNum the pile the move put cards on, or -1
+     * @param dstTop the top card of the destination pile before the move, or null
+     */
+    private void updateTopCards(int srcNum, Card srcTop, int dstNum, Card dstTop) {
+        removeTopCard(srcNum, srcTop);
+        removeTopCard(dstNum, dstTop);
+        addTopCard(srcNum);
+        addTopCard(dstNum);
+    }
+
+    private void removeTopCard(int pileNum, Card top) {
+        if (top != null) {
+            topCards &= ~(1L << top.getId());
+            acceptingPiles[getAcceptedIndex(top)] &= ~(1 << pileNum);
+        }
+    }
+
+    private void addTopCard(int pileNum) {
+        if (pileNum < 0) {
+            return;
+        }
+        Card top = piles[pileNum].getTopCard();
+        if (top == null) {
+            emptyPiles |= 1 << pileNum;
+        } else {
+            emptyPiles &= ~(1 << pileNum);
+            topCards |= 1L << top.getId();
+            acceptingPiles[getAcceptedIndex(top)] |= 1 << pileNum;
+        }
+    }
+
+    /**
+     * Returns the index in acceptingPiles of the cards that can be built on a card: one rank lower, the other
+     * colour.
+     * @param top the card being built on
+     * @return the index
+     */
+    private static int getAcceptedIndex(Card top) {
+        return (top.getRank() - 1) * 2 + (top.isBlack() ? 0 : 1);
     }
 
     private void dealCards() {
         for (int i = 0; i < 7; i++) {
             for (int j = 0; j <= i; j++) {
                 piles[i].dealCard(deck.pop());
-                piles[i].getTopHiddenCard().setLocation(i);
+                locations[piles[i].getTopHiddenCard().getId()] = (byte) i;
             }
             piles[i].revealCard();
         }
@@ -62,18 +169,14 @@ public class Solitaire {
 
     private void moveEntireBuildStack(Pile src, Pile dst) {
         int rankCheck;
-        if (dst.getPile().isEmpty()) {
+        if (dst.isEmpty()) {
             rankCheck = 0;
         } else {
             rankCheck = dst.getTopCard().getRank() - 1;
         }
         if ((src.getBottomCard().getRank() == rankCheck) ||
                 ((src.getBottomCard().getRank() == 13) && (rankCheck == 0))) {
-            Stack<Card> tmpStack = new Stack<>();
-            while (!src.getBuildStack().isEmpty()) {
-                tmpStack.push(src.getBuildStack().pop());
-            }
-            addStackToBuildStack(tmpStack, dst);
+            addStackToBuildStack(src, 0, dst);
             if (!src.getHiddenCards().isEmpty()) {
                 src.revealCard();
             }
@@ -84,28 +187,38 @@ public class Solitaire {
 
     private void movePartialBuildStack(Pile src, Pile dst, int cardNum) {
         int rankCheck;
-        if (dst.getPile().isEmpty()) {
+        if (dst.isEmpty()) {
             rankCheck = 0;
         } else {
             rankCheck = dst.getTopCard().getRank() - 1;
         }
         if ((src.getBuildCard(cardNum).getRank() == rankCheck) ||
                 ((src.getBuildCard(cardNum).getRank() == 13) && (rankCheck == 0))) {
-            Stack<Card> tmpStack = new Stack<>();
-            int size = src.getBuildStack().size();
-            for (int i = cardNum; i < size; i++) {
-                tmpStack.push(src.getBuildStack().pop());
-            }
-            addStackToBuildStack(tmpStack, dst);
+            addStackToBuildStack(src, cardNum, dst);
         } else {
             throw new InvalidMoveException("Invalid move: Cannot move partial build stack");
         }
     }
 
-    private void addStackToBuildStack(Stack<Card> stack, Pile dst) {
-        while (!stack.isEmpty()) {
-            stack.peek().setLocation(this.getPileNum(dst));
-            dst.addToBuildStack(stack.pop());
+    /**
+     * Moves the build stack cards from index cardNum upwards onto another pile with a single array copy.
+     * @param src the pile the cards are moved from
+     * @param cardNum the build stack index of the lowest card moved
+     * @param dst the pile the cards are moved to
+     */
+    private void addStackToBuildStack(Pile src, int cardNum, Pile dst) {
+        Card bottomCard = src.getBuildCard(cardNum);
+        if (!dst.getBuildStack().isEmpty() && dst.getTopCard().isBlack() == bottomCard.isBlack()) {
+            throw new InvalidColourException("Incorrect colour, cannot put two " +
+                    (bottomCard.isBlack() ? "black" : "red") + " cards on top of each other.");
+        }
+
+        int dstNum = this.getPileNum(dst);
+        CardStack dstBuild = dst.getBuildStack();
+        int firstMoved = dstBuild.size();
+        src.getBuildStack().moveTo(dstBuild, cardNum);
+        for (int i = firstMoved; i < dstBuild.size(); i++) {
+            locations[dstBuild.get(i).getId()] = (byte) dstNum;
         }
     }
 
@@ -118,106 +231,333 @@ public class Solitaire {
         return -1;
     }
 
-    private ArrayList<Card> getUsableCards() {
-        ArrayList<Card> usableCards = new ArrayList<>();
-
-        try {
-            Card card = stock.draw();
-            while (!usableCards.contains(card)) {
-                usableCards.add(card);
-                card = stock.draw();
+    /**
+     * Generates every possible move as a packed int, writing them into a caller-owned buffer.
+     * Stock cards are taken in the order a full cycle of draws would reach them, from the stock's precomputed
+     * draw order, and the card index is left where the cycle would leave it. Allocates nothing.
+     * @param buffer the buffer to clear and fill with packed moves
+     */
+    public void generateMoves(MoveBuffer buffer) {
+        buffer.clear();
+        long foundationCards = foundation.getNextCards();
+
+        if (!stock.getStock().isEmpty()) {
+            ArrayList<Card> stockCards = stock.getStock();
+            for (byte index : stock.getDrawOrder()) {
+                addMovesForCard(buffer, stockCards.get(index), 7, foundationCards);
             }
-        } catch (EmptyStockException e) {
-            // Do nothing, stock is empty
+            stock.drawAll();
         }
 
-        for (Pile pile : piles) {
-            if (!pile.getBuildStack().isEmpty()) {
-                usableCards.addAll(pile.getBuildStack());
-            }
+        for (int p = 0; p < piles.length; p++) {
+            CardStack buildStack = piles[p].getBuildStack();
+            for (int i = 0; i < buildStack.size(); i++) {
+                addMovesForCard(buffer, buildStack.get(i), p, i == buildStack.size() - 1 ? foundationCards : 0);
+            } //Only the card at the top of the pile can be moved to the foundation.
         }
-        return usableCards;
     }
 
-    public ArrayList<Move> getPossibleMoves() {
-        ArrayList<Move> possibleMoves = new ArrayList<>();
-        ArrayList<Card> usableCards = getUsableCards();
-
-        for (Card card : usableCards) {
-            if (card.getLocation() != 7) {
-                if (card.equals(piles[card.getLocation()].getTopCard())) {
-                    checkRankForFoundationMove(possibleMoves, card);
-                }
-            } //Check that card is at top of the pile for foundation move.
-            else {
-                checkRankForFoundationMove(possibleMoves, card);
-            }
+    /**
+     * Adds every move of a card: to the foundation if it is the next card of its suit, then to each pile that
+     * accepts it, in pile order. The piles are looked up by the card's rank and colour rather than checked
+     * one by one.
+     * Empty piles are interchangeable, so a King is only moved to the first of them. A King that is the
+     * bottom card of a pile with no hidden cards is not moved to an empty pile at all, as that only swaps
+     * which pile is empty.
+     * @param buffer the buffer to add the moves to
+     * @param card the card to move
+     * @param src the location of the card
+     * @param foundationCards the cards that can be moved to the foundation, 0 if this card cannot be
+     */
+    private void addMovesForCard(MoveBuffer buffer, Card card, int src, long foundationCards) {
+        if ((foundationCards & (1L << card.getId())) != 0) {
+            addMove(buffer, card, src, null, PackedMove.FOUNDATION);
+        }
 
-            for (Pile pile : piles) {
-                Card topCard = pile.getTopCard();
-                if (!pile.getBuildStack().isEmpty()) {
-                    if (topCard.isBlack() != card.isBlack()) {
-                        if (card.getRank() == topCard.getRank() - 1) {
-                            possibleMoves.add(new Move(card, pile));
-                        }
-                    }
-                } else {
-                    if (card.getRank() == 13) {
-                        possibleMoves.add(new Move(card, pile));
-                    }
-                }
+        int dstPiles = acceptingPiles[card.getRank() * 2 + (card.isBlack() ? 1 : 0)];
+        if (card.getRank() == 13 && emptyPiles != 0) {
+            boolean alreadyAlone = src != 7 && piles[src].getHiddenCards().isEmpty() &&
+                    piles[src].getBottomCard() == card;
+            if (!alreadyAlone) {
+                dstPiles |= emptyPiles & -emptyPiles;
             }
         }
-
-        for (Move move : possibleMoves) {
-            move.determineMoveType(piles);
+        for (; dstPiles != 0; dstPiles &= dstPiles - 1) {
+            int i = Integer.numberOfTrailingZeros(dstPiles);
+            addMove(buffer, card, src, piles[i], i);
         }
+    }
 
+    private void addMove(MoveBuffer buffer, Card card, int src, Pile dst, int dstNum) {
+        int moveType = Move.getMoveType(card, src, dst, piles);
+        int scores = Move.evaluate(card, src, moveType, dst, this);
+        buffer.add(PackedMove.pack(card.getId(), src, dstNum, moveType,
+                PackedMove.getHeuristic(scores), PackedMove.getPriority(scores)));
+    }
+
+    public ArrayList<Move> getPossibleMoves() {
+        MoveBuffer buffer = new MoveBuffer();
+        this.generateMoves(buffer);
+
+        ArrayList<Move> possibleMoves = new ArrayList<>(buffer.size());
+        for (int i = 0; i < buffer.size(); i++) {
+            possibleMoves.add(this.toMove(buffer.get(i)));
+        }
         return possibleMoves;
     }
 
-    private void checkRankForFoundationMove(ArrayList<Move> possibleMoves, Card card) {
-        int rank;
-        rank = switch (card.getSuit()) {
-            case 'C' -> foundation.getClubs();
-            case 'S' -> foundation.getSpades();
-            case 'D' -> foundation.getDiamonds();
-            case 'H' -> foundation.getHearts();
-            default -> throw new InvalidSuitException("Invalid suit: Valid suits include " +
-                    "['H', 'D', 'C', 'S'], not " + card.getSuit());
-        };
-        if (card.getRank() == rank + 1) {
-            possibleMoves.add(new Move(card));
+    /**
+     * Converts a packed move into a Move on this game.
+     * @param packedMove the packed move
+     * @return the equivalent Move
+     */
+    public Move toMove(int packedMove) {
+        Card card = Card.getCard(PackedMove.getCardId(packedMove));
+        Move move;
+        if (PackedMove.getDst(packedMove) == PackedMove.FOUNDATION) {
+            move = new Move(card, PackedMove.getSrc(packedMove));
+        } else {
+            move = new Move(card, PackedMove.getSrc(packedMove), piles[PackedMove.getDst(packedMove)]);
         }
+        move.setMoveType(PackedMove.getMoveType(packedMove));
+        move.setHeuristic(PackedMove.getHeuristic(packedMove));
+        move.setPriority(PackedMove.getPriority(packedMove));
+        return move;
     }
 
-    public void makeMove(Move move) {
-        switch (move.getMoveType()) {
+    /**
+     * Makes a move on the game.
+     * @param move the move to make
+     * @return an undo record that unmakeMove can use to revert the move
+     */
+    public MoveUndo makeMove(Move move) {
+        return makeMove(move, new MoveUndo());
+    }
+
+    /**
+     * Makes a move on the game, recording what it changes in a caller-owned undo record.
+     * @param move the move to make
+     * @param undo the record to fill
+     * @return the filled undo record
+     */
+    public MoveUndo makeMove(Move move, MoveUndo undo) {
+        return makeMove(move.getCard(), move.getMoveType(), move.getDst(), undo);
+    }
+
+    /**
+     * Makes a packed move on the game, recording what it changes in a caller-owned undo record.
+     * @param packedMove the packed move to make
+     * @param undo the record to fill
+     * @return the filled undo record
+     */
+    public MoveUndo makeMove(int packedMove, MoveUndo undo) {
+        int dstNum = PackedMove.getDst(packedMove);
+        return makeMove(Card.getCard(PackedMove.getCardId(packedMove)), PackedMove.getMoveType(packedMove),
+                dstNum == PackedMove.FOUNDATION ? null : piles[dstNum], undo);
+    }
+
+    private MoveUndo makeMove(Card card, int moveType, Pile dst, MoveUndo undo) {
+        undo.moveType = moveType;
+        undo.card = card;
+        int location = locations[card.getId()];
+        undo.src = location;
+        undo.dst = -1;
+        undo.numCards = 1;
+        undo.revealed = false;
+        undo.prevCardIndex = stock.getCardIndex();
+        Pile srcPile = location == 7 ? null : piles[location];
+        int srcNum = location == 7 ? -1 : location;
+        int dstNum = dst == null ? -1 : this.getPileNum(dst);
+        undo.prevStateHash = stateHash;
+        undo.prevCardHash = cardHash;
+        undo.prevSrcPileHash = srcNum == -1 ? 0 : pileHashes[srcNum];
+        undo.prevDstPileHash = dstNum == -1 ? 0 : pileHashes[dstNum];
+        Card srcTop = srcPile == null ? null : srcPile.getTopCard();
+        Card dstTop = dst == null ? null : dst.getTopCard();
+
+        switch (moveType) {
             case 0:
-                foundation.toFoundation(move.getCard());
-                if (move.getCard().getLocation() != 7) {
-                    piles[move.getCard().getLocation()].removeTopCard();
+                foundation.toFoundation(card);
+                if (location != 7) {
+                    Pile src = piles[location];
+                    undo.revealed = src.getBuildStack().size() == 1 && !src.getHiddenCards().isEmpty();
+                    pileHashes[location] ^= Zobrist.pileKey(card, getPileDepth(src) - 1);
+                    src.removeTopCard();
                 } //pile to foundation
                 else {
-                    stock.removeCard(stock.getCardStockIndex(move.getCard()));
+                    undo.stockIndex = stock.getCardStockIndex(card);
+                    cardHash ^= Zobrist.stockKey(card);
+                    stock.removeCard(undo.stockIndex);
                 } //stock to foundation
+                cardHash ^= Zobrist.foundationKey(card);
                 break;
             case 1:
-                move.getDst().addToBuildStack(move.getCard());
-                move.getCard().setLocation(this.getPileNum(move.getDst()));
-                stock.removeCard(stock.getCardStockIndex(move.getCard()));
+                int dstDepth = getPileDepth(dst);
+                dst.addToBuildStack(card);
+                locations[card.getId()] = (byte) dstNum;
+                undo.dst = dstNum;
+                undo.stockIndex = stock.getCardStockIndex(card);
+                stock.removeCard(undo.stockIndex);
+                cardHash ^= Zobrist.stockKey(card);
+                pileHashes[dstNum] ^= Zobrist.pileKey(card, dstDepth);
                 break;
             //stock to pile
             case 2:
-                this.moveEntireBuildStack(piles[move.getCard().getLocation()], move.getDst());
+                Pile entireSrc = piles[location];
+                undo.dst = dstNum;
+                undo.numCards = entireSrc.getBuildStack().size();
+                undo.revealed = !entireSrc.getHiddenCards().isEmpty();
+                this.moveBuildCards(entireSrc, dst, 0);
                 break;
             //pile to pile: Move entire pile
             case 3:
-                this.movePartialBuildStack(piles[move.getCard().getLocation()], move.getDst(),
-                        piles[move.getCard().getLocation()].getCardIndex(move.getCard()));
+                Pile partialSrc = piles[location];
+                int cardNum = partialSrc.getCardIndex(card);
+                undo.dst = dstNum;
+                undo.numCards = partialSrc.getBuildStack().size() - cardNum;
+                this.moveBuildCards(partialSrc, dst, cardNum);
                 break;
             //pile to pile: Move partial pile
         }
+        if (undo.revealed) {
+            hiddenCards &= ~(1L << srcPile.getTopCard().getId());
+        }
+        updateTopCards(srcNum, srcTop, dstNum, dstTop);
+        updateStateHash(undo, srcNum, dstNum);
+        return undo;
+    }
+
+    /**
+     * Reverts a move made by makeMove. Moves must be unmade in the reverse order they were made.
+     * @param undo the record returned when the move was made
+     */
+    public void unmakeMove(MoveUndo undo) {
+        Card card = undo.card;
+        Pile srcPile = undo.src == 7 ? null : piles[undo.src];
+        Pile dstPile = undo.dst == -1 ? null : piles[undo.dst];
+        Card srcTop = srcPile == null ? null : srcPile.getTopCard();
+        Card dstTop = dstPile == null ? null : dstPile.getTopCard();
+        if (undo.revealed) {
+            hiddenCards |= 1L << srcTop.getId();
+        }
+        switch (undo.moveType) {
+            case 0:
+                foundation.fromFoundation(card);
+                if (undo.src == 7) {
+                    stock.insertCard(undo.stockIndex, card);
+                    locations[card.getId()] = 7;
+                } else {
+                    Pile src = piles[undo.src];
+                    if (undo.revealed) {
+                        src.hideTopCard();
+                    }
+                    src.restoreToBuildStack(card);
+                }
+                break;
+            case 1:
+                piles[undo.dst].getBuildStack().pop();
+                stock.insertCard(undo.stockIndex, card);
+                locations[card.getId()] = 7;
+                break;
+            case 2:
+            case 3:
+                Pile src = piles[undo.src];
+                CardStack dstBuild = piles[undo.dst].getBuildStack();
+                if (undo.revealed) {
+                    src.hideTopCard();
+                }
+                int firstMoved = dstBuild.size() - undo.numCards;
+                for (int i = firstMoved; i < dstBuild.size(); i++) {
+                    locations[dstBuild.get(i).getId()] = (byte) undo.src;
+                }
+                dstBuild.moveTo(src.getBuildStack(), firstMoved);
+                break;
+        }
+        stock.setCardIndex(undo.prevCardIndex);
+        stateHash = undo.prevStateHash;
+        cardHash = undo.prevCardHash;
+        if (undo.src != 7) {
+            pileHashes[undo.src] = undo.prevSrcPileHash;
+        }
+        if (undo.dst != -1) {
+            pileHashes[undo.dst] = undo.prevDstPileHash;
+        }
+        updateTopCards(undo.src == 7 ? -1 : undo.src, srcTop, undo.dst, dstTop);
+    }
+
+    /**
+     * Recomputes the state hash after a move, replacing the mixed hashes the source and destination piles had
+     * before it in the sum with their new ones.
+     * @param undo the record of the move, holding the hashes from before it
+     * @param srcNum the pile the move took cards from, or -1
+     * @param dstNum the pile the move put cards on, or -1
+     */
+    private void updateStateHash(MoveUndo undo, int srcNum, int dstNum) {
+        long pilesHash = undo.prevStateHash ^ undo.prevCardHash;
+        if (srcNum != -1) {
+            pilesHash += Zobrist.mixPile(pileHashes[srcNum]) - Zobrist.mixPile(undo.prevSrcPileHash);
+        }
+        if (dstNum != -1) {
+            pilesHash += Zobrist.mixPile(pileHashes[dstNum]) - Zobrist.mixPile(undo.prevDstPileHash);
+        }
+        stateHash = cardHash ^ pilesHash;
+    }
+
+    /**
+     * Moves the build stack cards from index cardNum upwards onto another pile, keeping the pile hashes in step.
+     * @param src the pile the cards are moved from
+     * @param dst the pile the cards are moved to
+     * @param cardNum the build stack index of the lowest card moved
+     */
+    private void moveBuildCards(Pile src, Pile dst, int cardNum) {
+        int srcNum = this.getPileNum(src);
+        int dstNum = this.getPileNum(dst);
+        int srcDepth = src.getHiddenCards().size() + cardNum;
+        int dstDepth = getPileDepth(dst);
+        int numCards = src.getBuildStack().size() - cardNum;
+
+        if (cardNum == 0) {
+            this.moveEntireBuildStack(src, dst);
+        } else {
+            this.movePartialBuildStack(src, dst, cardNum);
+        }
+
+        CardStack dstBuild = dst.getBuildStack();
+        int firstMoved = dstBuild.size() - numCards;
+        for (int i = 0; i < numCards; i++) {
+            Card moved = dstBuild.get(firstMoved + i);
+            pileHashes[srcNum] ^= Zobrist.pileKey(moved, srcDepth + i);
+            pileHashes[dstNum] ^= Zobrist.pileKey(moved, dstDepth + i);
+        }
+    }
+
+    private static int getPileDepth(Pile pile) {
+        return pile.getHiddenCards().size() + pile.getBuildStack().size();
+    }
+
+    /**
+     * Returns the equivalent of a move from another copy of this game, using this game's cards and piles.
+     * Used to replay a move on a cloned game.
+     * @param move a move from the other game
+     * @param other the game the move was generated for, in the same state as this one
+     * @return the same move on this game
+     */
+    public Move getMatchingMove(Move move, Solitaire other) {
+        Card card = move.getCard();
+        if (locations[card.getId()] != move.getSrc()) {
+            throw new InvalidMoveException("Invalid move: " + card + " is not in the same place in this game");
+        }
+
+        Move matchingMove;
+        if (move.getDst() == null) {
+            matchingMove = new Move(card, move.getSrc());
+        } else {
+            matchingMove = new Move(card, move.getSrc(), piles[other.getPileNum(move.getDst())]);
+        }
+        matchingMove.setMoveType(move.getMoveType());
+        matchingMove.setHeuristic(move.getHeuristic());
+        matchingMove.setPriority(move.getPriority());
+        return matchingMove;
     }
 
     /**
@@ -268,16 +608,17 @@ public class Solitaire {
      * Returns the best move from a list of moves based on the Monte Carlo score.
      * Used in the monteCarloSolitaireSolver.
      * @param moves possible moves
+     * @param random the generator used to break ties
      * @return the best move based on the Monte Carlo score
      */
-    public Move getBestMoveMonetCarlo(ArrayList<Move> moves) {
+    public Move getBestMoveMonetCarlo(ArrayList<Move> moves, RandomGenerator random) {
         Move bestMove = moves.getFirst();
         for (Move move : moves) {
             if (move.getMonteCarloScore() > bestMove.getMonteCarloScore()) {
                 bestMove = move;
             }
             if (move.getMonteCarloScore() == bestMove.getMonteCarloScore()) {
-                if (((int) (Math.random() * 2)) == 0) {
+                if (random.nextInt(2) == 0) {
                     bestMove = move;
                 } // Randomly select between two moves with the same score
             }
@@ -315,6 +656,35 @@ public class Solitaire {
         return gameState;
     }
 
+    /**
+     * Returns the 64-bit Zobrist hash of the current game state.
+     * Updated incrementally by makeMove, so equal states give equal hashes without building a state string.
+     * States that differ only in the order of their piles have the same hash.
+     * @return the state hash
+     */
+    public long getStateHash() {
+        return stateHash;
+    }
+    public void setStateHash(long stateHash) {
+        this.stateHash = stateHash;
+    }
+
+    /**
+     * Returns the location of a card in this game.
+     * @param card the card
+     * @return 7 for the stock, 0-6 for a pile
+     */
+    public int getLocation(Card card) {
+        return locations[card.getId()];
+    }
+
+    public byte[] getLocations() {
+        return locations;
+    }
+    public void setLocations(byte[] locations) {
+        this.locations = locations;
+    }
+
     public Foundation getFoundation() {
         return foundation;
     }
@@ -326,11 +696,23 @@ public class Solitaire {
     }
 
     public int getHiddenCardsCount() {
-        int count = 0;
-        for (Pile pile : piles) {
-            count += pile.getHiddenCards().size();
-        }
-        return count;
+        return Long.bitCount(hiddenCards);
+    }
+
+    /**
+     * Returns the cards face down in the piles.
+     * @return a bitmask with bit i set if the card with id i is face down
+     */
+    public long getHiddenCardMask() {
+        return hiddenCards;
+    }
+
+    /**
+     * Returns the cards on top of the piles' build stacks, the cards other cards can be built on.
+     * @return a bitmask with bit i set if the card with id i is on top of a pile
+     */
+    public long getTopCardMask() {
+        return topCards;
     }
 
     @Override
@@ -1,19 +1,53 @@
 package SolitaireSolver;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import SolitaireSolver.Exceptions.EmptyStackException;
 import SolitaireSolver.Exceptions.EmptyStockException;
 
 /**
  * Stock class representing the stock in the game of Solitaire.
  * The stock contains cards that can be drawn during the game.
+ * Cards stay in the order they were dealt, so a card's index is found from its dealt position and the dealt
+ * positions still in the stock. Which cards can be reached by drawing depends only on the card index and the
+ * number of cards, so the order they are drawn in is precomputed for every stock size.
  */
 public class Stock {
+    static final int MAX_CARDS = 24;
+    private static final byte[][][] DRAW_ORDERS = new byte[MAX_CARDS + 1][][];
+    private static final byte[][] DRAW_ENDS = new byte[MAX_CARDS + 1][];
+    // Indexed by stock size, then card index: the indices draw returns until one repeats, and the card index after
+
     ArrayList<Card> stock;
     int cardIndex;
+    private final byte[] dealtPositions;
+    // Position of each card id in the stock as dealt, -1 for cards not dealt to the stock
+    private long remaining;
+    // Bit per dealt position still in the stock
 
     final int STARTING_INDEX = 2;
 
+    static {
+        for (int size = 1; size <= MAX_CARDS; size++) {
+            DRAW_ORDERS[size] = new byte[size][];
+            DRAW_ENDS[size] = new byte[size];
+            for (int start = 0; start < size; start++) {
+                byte[] order = new byte[size];
+                boolean[] drawn = new boolean[size];
+                int numDrawn = 0;
+                int index = start;
+                while (!drawn[index]) {
+                    drawn[index] = true;
+                    order[numDrawn++] = (byte) index;
+                    index = nextIndex(index, size);
+                }
+                DRAW_ORDERS[size][start] = Arrays.copyOf(order, numDrawn);
+                DRAW_ENDS[size][start] = (byte) nextIndex(index, size);
+                // Drawing the repeated card moves the index on once more
+            }
+        }
+    }
+
     /**
      * Constructor for Stock.
      * Initializes the stock with a given list of cards.
@@ -22,23 +56,49 @@ public class Stock {
     public Stock(ArrayList<Card> cards) {
         stock = cards;
         cardIndex = STARTING_INDEX;
-
-        for (Card card : stock) {
-            card.setLocation(7);
+        dealtPositions = new byte[Zobrist.NUM_CARDS];
+        Arrays.fill(dealtPositions, (byte) -1);
+        for (int i = 0; i < cards.size(); i++) {
+            dealtPositions[cards.get(i).getId()] = (byte) i;
         }
+        remaining = (1L << cards.size()) - 1;
     }
 
     /**
-     * Deep copy constructor for Stock.
+     * Copy constructor for Stock.
+     * Cards are immutable and shared, so only the list is copied. The dealt positions never change, so they
+     * are shared too.
      * @param other the Stock to copy
      */
     public Stock(Stock other) {
-        this.stock = new ArrayList<>();
-        for (Card card : other.getStock()) {
-            this.stock.add(new Card(card));
-        }
+        this.stock = new ArrayList<>(other.getStock());
         this.cardIndex = other.getCardIndex();
-        this.updateCardLocations();
+        this.dealtPositions = other.dealtPositions;
+        this.remaining = other.remaining;
+    }
+
+    private static int nextIndex(int index, int size) {
+        if ((index == size - 1) && (size > 2)) {
+            return 2;
+        }
+        return Math.min(index + 3, size - 1);
+    }
+
+    /**
+     * Returns the indices of the cards draw would return from the current card index, in order, until a card
+     * repeats. These are the stock cards that can be played.
+     * @return the indices, shared and not to be changed
+     */
+    public byte[] getDrawOrder() {
+        return DRAW_ORDERS[stock.size()][cardIndex];
+    }
+
+    /**
+     * Moves the card index to where it would be after drawing every card in getDrawOrder, then the first card
+     * again.
+     */
+    public void drawAll() {
+        cardIndex = DRAW_ENDS[stock.size()][cardIndex];
     }
 
     /**
@@ -63,7 +123,8 @@ public class Stock {
 
     public boolean removeCard(int index) {
         if (!stock.isEmpty()) {
-            stock.remove(index);
+            Card card = stock.remove(index);
+            remaining &= ~(1L << dealtPositions[card.getId()]);
             if (index > 0) {
                 this.setCardIndex(index - 1);
             } else {
@@ -74,6 +135,11 @@ public class Stock {
         throw new EmptyStockException("Stock is empty, cannot remove top card.");
     }
 
+    public void insertCard(int index, Card card) {
+        stock.add(index, card);
+        remaining |= 1L << dealtPositions[card.getId()];
+    }
+
     public int getCardIndex() {
         return cardIndex;
     }
@@ -85,20 +151,39 @@ public class Stock {
         return stock.get(cardIndex);
     }
 
+    /**
+     * Returns the index of a card in the stock in constant time, by counting the cards dealt before it that are
+     * still in the stock.
+     * @param card the card to find
+     * @return the index of the card, or -1 if it is not in the stock
+     */
     public int getCardStockIndex(Card card) {
-        return stock.indexOf(card);
+        int position = dealtPositions[card.getId()];
+        if (position < 0 || (remaining & (1L << position)) == 0) {
+            return -1;
+        }
+        return Long.bitCount(remaining & ((1L << position) - 1));
     }
 
     public ArrayList<Card> getStock() {
         return stock;
     }
+    /**
+     * Replaces the cards in the stock. Cards stay in dealt order, so only cards dealt to this stock can be put
+     * back in it.
+     * @param cards the cards, in the order they were dealt
+     * @throws IllegalArgumentException if a card was not dealt to the stock
+     */
     public void setStock(ArrayList<Card> cards) {
-        stock = new ArrayList<>(cards);
-    }
-
-    public void updateCardLocations() {
-        for (Card card : stock) {
-            card.setLocation(7);
+        long positions = 0;
+        for (Card card : cards) {
+            int position = dealtPositions[card.getId()];
+            if (position < 0) {
+                throw new IllegalArgumentException(card + " was not dealt to the stock.");
+            }
+            positions |= 1L << position;
         }
+        stock = new ArrayList<>(cards);
+        remaining = positions;
     }
 }
@@ -0,0 +1,118 @@
+package SolitaireSolver;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist class holding the random keys used to hash a game of Solitaire.
+ * Every card has one key for each position it can occupy: a depth in a pile, the stock, or the foundation.
+ * Each pile is hashed as the XOR of the keys of its cards, and the stock and foundation as the XOR of theirs,
+ * so a move only has to XOR out the old positions and XOR in the new ones of the cards it touches.
+ * Pile keys do not depend on which pile a card is in, and the pile hashes are mixed and summed, so games that
+ * differ only in the order of their piles, such as a King moved to one empty pile instead of another, have the
+ * same hash.
+ */
+public final class Zobrist {
+    static final int NUM_CARDS = 52;
+    static final int MAX_PILE_DEPTH = 19;
+    // 6 hidden cards + 13 build stack cards
+    static final int STOCK_SLOT = MAX_PILE_DEPTH;
+    static final int FOUNDATION_SLOT = STOCK_SLOT + 1;
+
+    private static final long[][] KEYS = new long[NUM_CARDS][FOUNDATION_SLOT + 1];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED5017A15EL);
+        for (long[] cardKeys : KEYS) {
+            for (int i = 0; i < cardKeys.length; i++) {
+                cardKeys[i] = random.nextLong();
+            }
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    public static long pileKey(Card card, int depth) {
+        return KEYS[card.getId()][depth];
+    }
+
+    public static long stockKey(Card card) {
+        return KEYS[card.getId()][STOCK_SLOT];
+    }
+
+    public static long foundationKey(Card card) {
+        return KEYS[card.getId()][FOUNDATION_SLOT];
+    }
+
+    /**
+     * Computes the hash of one pile from scratch.
+     * @param pile the pile to hash
+     * @return the XOR of the keys of the pile's cards at their depths
+     */
+    public static long pileHash(Pile pile) {
+        long hash = 0;
+        int depth = 0;
+        for (Card card : pile.getHiddenCards()) {
+            hash ^= pileKey(card, depth++);
+        }
+        for (Card card : pile.getBuildStack()) {
+            hash ^= pileKey(card, depth++);
+        }
+        return hash;
+    }
+
+    /**
+     * Computes the hash of the cards outside the piles from scratch.
+     * The stock keeps its cards in dealt order, so which cards are in the stock fully describes it. Cards
+     * missing from the stock and piles are in the foundation.
+     * @param game the game to hash
+     * @return the XOR of the stock and foundation keys of those cards
+     */
+    public static long cardHash(Solitaire game) {
+        long hash = 0;
+        boolean[] placed = new boolean[NUM_CARDS];
+        for (Pile pile : game.getPiles()) {
+            for (Card card : pile.getHiddenCards()) {
+                placed[card.getId()] = true;
+            }
+            for (Card card : pile.getBuildStack()) {
+                placed[card.getId()] = true;
+            }
+        }
+        for (Card card : game.getStock().getStock()) {
+            hash ^= stockKey(card);
+            placed[card.getId()] = true;
+        }
+        for (int id = 0; id < NUM_CARDS; id++) {
+            if (!placed[id]) {
+                hash ^= KEYS[id][FOUNDATION_SLOT];
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Mixes a pile hash before it is summed with the others, so moving a card between two piles changes the
+     * total even when the card stays at the same depth.
+     * @param pileHash the hash of a pile
+     * @return the mixed hash
+     */
+    public static long mixPile(long pileHash) {
+        pileHash = (pileHash ^ (pileHash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        pileHash = (pileHash ^ (pileHash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return pileHash ^ (pileHash >>> 33);
+    }
+
+    /**
+     * Computes the hash of a game from scratch: the card hash XORed with the sum of the mixed pile hashes.
+     * @param game the game to hash
+     * @return the 64-bit hash of the game state
+     */
+    public static long hash(Solitaire game) {
+        long pilesHash = 0;
+        for (Pile pile : game.getPiles()) {
+            pilesHash += mixPile(pileHash(pile));
+        }
+        return cardHash(game) ^ pilesHash;
+    }
+}
@@ -0,0 +1,102 @@
+package SolitaireSolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardStackTest {
+    private static CardStack stackOf(int... ids) {
+        CardStack stack = new CardStack(52);
+        for (int id : ids) {
+            stack.push(Card.getCard(id));
+        }
+        return stack;
+    }
+
+    @Test
+    void findsCardsAfterPushAndPop() {
+        CardStack stack = stackOf(5, 17, 40);
+        assertEquals(0, stack.indexOf(Card.getCard(5)));
+        assertEquals(1, stack.indexOf(Card.getCard(17)));
+        assertEquals(2, stack.indexOf(Card.getCard(40)));
+        assertEquals(-1, stack.indexOf(Card.getCard(6)));
+
+        assertEquals(Card.getCard(40), stack.pop());
+        assertEquals(-1, stack.indexOf(Card.getCard(40)));
+        stack.push(Card.getCard(3));
+        assertEquals(2, stack.indexOf(Card.getCard(3)));
+        assertEquals(-1, stack.indexOf(Card.getCard(40)));
+        // 40's stale position now holds another card
+        assertEquals(Card.getCard(3), stack.peek());
+    }
+
+    @Test
+    void movesCardsKeepingTheirOrder() {
+        CardStack src = stackOf(1, 2, 3, 4, 5);
+        CardStack dst = stackOf(10, 11);
+
+        src.moveTo(dst, 2);
+
+        assertEquals(List.of(Card.getCard(1), Card.getCard(2)), src.toList());
+        assertEquals(List.of(Card.getCard(10), Card.getCard(11), Card.getCard(3), Card.getCard(4),
+                Card.getCard(5)), dst.toList());
+        for (int i = 0; i < dst.size(); i++) {
+            assertEquals(i, dst.indexOf(dst.get(i)));
+        }
+        assertEquals(-1, src.indexOf(Card.getCard(3)));
+        assertThrows(IndexOutOfBoundsException.class, () -> src.get(2));
+
+        src.moveTo(dst, 0);
+        assertTrue(src.isEmpty());
+        assertEquals(7, dst.size());
+        assertEquals(5, dst.indexOf(Card.getCard(1)));
+    }
+
+    @Test
+    void copyIsIndependent() {
+        CardStack stack = stackOf(7, 8);
+        CardStack copy = new CardStack(stack);
+
+        copy.pop();
+        copy.push(Card.getCard(9));
+
+        assertEquals(List.of(Card.getCard(7), Card.getCard(8)), stack.toList());
+        assertEquals(1, stack.indexOf(Card.getCard(8)));
+        assertEquals(-1, stack.indexOf(Card.getCard(9)));
+        assertEquals(1, copy.indexOf(Card.getCard(9)));
+    }
+
+    @Test
+    void shufflesLikeCollectionsShuffle() {
+        for (long seed = 0; seed < 20; seed++) {
+            CardStack stack = new CardStack(52);
+            ArrayList<Card> list = new ArrayList<>();
+            for (int id = 0; id < 52; id++) {
+                stack.push(Card.getCard(id));
+                list.add(Card.getCard(id));
+            }
+
+            stack.shuffle(new Random(seed));
+            Collections.shuffle(list, new Random(seed));
+
+            assertEquals(list, stack.toList());
+            for (int i = 0; i < stack.size(); i++) {
+                assertEquals(i, stack.indexOf(stack.get(i)));
+            }
+        }
+    }
+
+    @Test
+    void emptyStackThrows() {
+        CardStack stack = new CardStack(1);
+        assertThrows(NoSuchElementException.class, stack::pop);
+        assertThrows(NoSuchElementException.class, stack::peek);
+        assertFalse(stack.iterator().hasNext());
+    }
+}
@@ -0,0 +1,97 @@
+package SolitaireSolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardTest {
+    @Test
+    void everyCardHasOneSharedInstance() {
+        for (int id = 0; id < 52; id++) {
+            Card card = Card.getCard(id);
+            assertEquals(id, card.getId());
+            assertEquals(id % 13 + 1, card.getRank());
+            assertEquals("CDHS".charAt(id / 13), card.getSuit());
+            assertEquals(card.getSuit() == 'C' || card.getSuit() == 'S', card.isBlack());
+            assertSame(card, Card.getCard(card.getRank(), card.getSuit()));
+        }
+        assertEquals("AC", Card.getCard(1, 'C').toString());
+        assertEquals("10D", Card.getCard(10, 'D').toString());
+        assertEquals("KS", Card.getCard(51).toString());
+    }
+
+    @Test
+    void rankColourMaskHoldsTheTwoCardsOfThatRankAndColour() {
+        for (int rank = 0; rank <= 14; rank++) {
+            for (boolean black : new boolean[]{false, true}) {
+                long expected = 0;
+                for (int id = 0; id < 52; id++) {
+                    Card card = Card.getCard(id);
+                    if (card.getRank() == rank && card.isBlack() == black) {
+                        expected |= 1L << id;
+                    }
+                }
+                assertEquals(expected, Card.getRankColourMask(rank, black), "rank " + rank + ", black " + black);
+                assertEquals(rank == 0 || rank == 14 ? 0 : 2, Long.bitCount(expected));
+            }
+        }
+    }
+
+    @Test
+    void dealtGameTracksEveryCardLocation() {
+        Solitaire game = new Solitaire(new Deck(new SplittableRandom(12)));
+
+        int placed = 0;
+        for (int i = 0; i < game.getPiles().length; i++) {
+            Pile pile = game.getPiles()[i];
+            assertEquals(i + 1, pile.getHiddenCards().size() + pile.getBuildStack().size());
+            for (Card card : pile.getHiddenCards()) {
+                assertEquals(i, game.getLocation(card));
+                placed++;
+            }
+            for (Card card : pile.getBuildStack()) {
+                assertEquals(i, game.getLocation(card));
+                placed++;
+            }
+        }
+        for (Card card : game.getStock().getStock()) {
+            assertEquals(7, game.getLocation(card));
+            placed++;
+        }
+        assertEquals(52, placed);
+    }
+
+    @Test
+    void copiedGameSharesCardsButNotLocations() {
+        SplittableRandom random = new SplittableRandom(13);
+        Solitaire game = new Solitaire(new Deck(random));
+        Solitaire copy = new Solitaire(game);
+        byte[] locations = game.getLocations().clone();
+
+        assertSame(game.getPiles()[6].getBuildStack().peek(), copy.getPiles()[6].getBuildStack().peek());
+        for (int i = 0; i < 40; i++) {
+            ArrayList<Move> moves = copy.getPossibleMoves();
+            if (moves.isEmpty()) {
+                break;
+            }
+            copy.makeMove(moves.get(random.nextInt(moves.size())));
+        }
+
+        assertNotSame(game.getLocations(), copy.getLocations());
+        assertArrayEquals(locations, game.getLocations(), "the original's locations changed");
+    }
+
+    @Test
+    void deckRebuiltFromIdsDealsTheSameGame() {
+        Deck deck = new Deck(new SplittableRandom(14));
+        byte[] cardIds = deck.toCardIds();
+        Solitaire game = new Solitaire(deck);
+        Solitaire rebuilt = new Solitaire(new Deck(cardIds));
+
+        assertEquals(Positions.describe(game), Positions.describe(rebuilt));
+        assertArrayEquals(game.getLocations(), rebuilt.getLocations(), "locations differ");
+    }
+}
@@ -0,0 +1,48 @@
+package SolitaireSolver;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadEndsTest {
+    @Test
+    void findsSingleCardDeadlock() {
+        // 5C is over 3C, and 6H is under it with 6D in the foundation, so it can never move
+        Solitaire game = Positions.of(
+                "6H 3C | 5C",
+                "KC QC JC 10C 9C 8C 7C | 6C",
+                "KH QH JH 10H 9H 8H | 7H",
+                "| 4C");
+
+        assertTrue(DeadEnds.isDeadEnd(game));
+    }
+
+    @Test
+    void findsPairwiseDeadlock() {
+        // 5C can only move onto 6D, under 8D, and 8D can only move onto 9S, under 5C
+        Solitaire game = Positions.of(
+                "9S 3C 6H | 5C",
+                "9C 7D 6D | 8D",
+                "KC QC JC 10C 8C 7C | 6C",
+                "| 4C",
+                "KD QD JD 10D | 9D",
+                "KH QH JH 10H 9H 8H | 7H",
+                "KS QS JS | 10S");
+
+        assertTrue(DeadEnds.isDeadEnd(game));
+    }
+
+    @Test
+    void ignoresBlockedLookingSolvablePosition() {
+        // 5C is over 3C with 6D in the foundation, but can move onto 6H
+        Solitaire game = Positions.of(
+                "3C | 5C",
+                "| 6H",
+                "KC QC JC 10C 9C 8C 7C | 6C",
+                "KH QH JH 10H 9H 8H | 7H",
+                "| 4C");
+
+        assertFalse(DeadEnds.isDeadEnd(game));
+        assertEquals(ExactSolver.Result.SOLVABLE, new ExactSolver(100000, 10000, 16).solve(game));
+    }
+}
@@ -0,0 +1,142 @@
+package SolitaireSolver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DealCacheTest {
+    private static final int RECORD_SIZE = 26 + 5 * 2;
+    // Key, duration, time to first win, thread count, and an outcome and move count for each of 2 threads
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void keepsResultsAcrossReopening() throws IOException {
+        Path path = dir.resolve("cache.bin");
+        try (DealCache cache = new DealCache(path, 10)) {
+            cache.put(1, deal(0, DealResult.WON, DealResult.CANCELLED));
+            cache.put(2, deal(1, DealResult.LOST, DealResult.UNKNOWN));
+        }
+
+        try (DealCache cache = new DealCache(path, 10)) {
+            assertEquals(2, cache.size());
+            assertNull(cache.get(3, 2, null));
+
+            DealResult won = cache.get(1, 0, null);
+            assertTrue(won.isRestored());
+            assertEquals(DealResult.WON, won.getOutcome(0));
+            assertEquals(DealResult.CANCELLED, won.getOutcome(1));
+            assertEquals(1, won.getMoves(0));
+            assertEquals(2, won.getMoves(1));
+            assertEquals(20.0, won.getDurationMs());
+            assertEquals(5.0, won.getTimeToFirstWinMs());
+
+            DealResult lost = cache.get(2, 1, null);
+            assertEquals(DealResult.LOST, lost.getOutcome(0));
+            assertEquals(DealResult.UNKNOWN, lost.getOutcome(1));
+            assertEquals(12, lost.getMoves(1));
+        }
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedResult() throws IOException {
+        try (DealCache cache = new DealCache(dir.resolve("cache.bin"), 2)) {
+            cache.put(1, deal(0, DealResult.WON, DealResult.WON));
+            cache.put(2, deal(1, DealResult.WON, DealResult.WON));
+            assertNotNull(cache.get(1, 0, null));
+            cache.put(3, deal(2, DealResult.WON, DealResult.WON));
+
+            assertEquals(2, cache.size());
+            assertNotNull(cache.get(1, 0, null));
+            assertNull(cache.get(2, 1, null));
+            assertNotNull(cache.get(3, 2, null));
+        }
+    }
+
+    @Test
+    void compactsLogHoldingMoreThanTwiceTheResultsKept() throws IOException {
+        Path path = dir.resolve("cache.bin");
+        try (DealCache cache = new DealCache(path, 2)) {
+            for (int i = 0; i < 10; i++) {
+                cache.put(i, deal(i, DealResult.LOST, DealResult.LOST));
+            }
+        }
+
+        assertEquals(8 + 2L * RECORD_SIZE, Files.size(path));
+        try (DealCache cache = new DealCache(path, 2)) {
+            assertEquals(2, cache.size());
+            assertNotNull(cache.get(8, 8, null));
+            assertNotNull(cache.get(9, 9, null));
+        }
+    }
+
+    @Test
+    void dropsRecordCutShort() throws IOException {
+        Path path = dir.resolve("cache.bin");
+        try (DealCache cache = new DealCache(path, 10)) {
+            cache.put(1, deal(0, DealResult.WON, DealResult.LOST));
+            cache.put(2, deal(1, DealResult.WON, DealResult.LOST));
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (DealCache cache = new DealCache(path, 10)) {
+            assertEquals(1, cache.size());
+            assertNull(cache.get(2, 1, null));
+            cache.put(3, deal(2, DealResult.WON, DealResult.LOST));
+        } // Appended after the last complete record
+        try (DealCache cache = new DealCache(path, 10)) {
+            assertEquals(2, cache.size());
+            assertNotNull(cache.get(3, 2, null));
+        }
+    }
+
+    @Test
+    void rejectsFileWithoutMagic() throws IOException {
+        Path path = dir.resolve("cache.bin");
+        Files.write(path, new byte[16]);
+
+        IOException e = assertThrows(IOException.class, () -> new DealCache(path, 10));
+        assertTrue(e.getMessage().contains("not a deal cache"), e.getMessage());
+    }
+
+    @Test
+    void keyDependsOnDealIndexAndConfiguration() {
+        Solitaire game = new Solitaire(new Deck(new SplittableRandom(15)));
+        Solitaire other = new Solitaire(new Deck(new SplittableRandom(16)));
+        long key = DealCache.getKey(game, 0, "seed=1 solver=p");
+
+        assertEquals(key, DealCache.getKey(new Solitaire(game), 0, "seed=1 solver=p"));
+        assertNotEquals(key, DealCache.getKey(game, 1, "seed=1 solver=p"));
+        assertNotEquals(key, DealCache.getKey(game, 0, "seed=1 solver=g"));
+        assertNotEquals(key, DealCache.getKey(other, 0, "seed=1 solver=p"));
+    }
+
+    @Test
+    void secondRunReusesEveryResult() throws IOException {
+        Path cache = dir.resolve("run.cache");
+        List<String> solved = Runs.solve(dir.resolve("first.csv"), "2", "5", "r", "--seed=17", "--cache=" + cache);
+        List<String> cached = Runs.solve(dir.resolve("second.csv"), "2", "5", "r", "--seed=17", "--cache=" + cache);
+
+        assertEquals(solved, cached);
+        try (DealCache reopened = new DealCache(cache, 100)) {
+            assertEquals(5, reopened.size());
+        } // Restored deals are not added to the cache again
+    }
+
+    private static DealResult deal(int dealIndex, byte first, byte second) {
+        return DealResult.restore(dealIndex, null, new byte[]{first, second},
+                new int[]{10 * dealIndex + 1, 10 * dealIndex + 2}, 20, 5);
+    }
+}
@@ -0,0 +1,75 @@
+package SolitaireSolver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DealCorpusTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void holdsTheDealsRunDeals() throws IOException {
+        // More deals than generate buffers at once, so the deals span several writes
+        Path path = dir.resolve("deals.bin");
+        DealCorpus.generate(path, 1500, 77);
+        assertEquals(DealCorpus.HEADER_SIZE + 1500L * DealCorpus.DEAL_SIZE, Files.size(path));
+
+        try (DealCorpus corpus = new DealCorpus(path)) {
+            assertEquals(1500, corpus.size());
+            assertEquals(77, corpus.getSeed());
+            for (int i : new int[]{0, 1, 1023, 1024, 1499}) {
+                Deck deck = new Deck(Run.getDealRandom(77, i).split());
+                assertArrayEquals(deck.toCardIds(), corpus.getCardIds(i), "deal " + i);
+                assertEquals(new Solitaire(deck).getGameState(), corpus.getDeal(i).getGameState(), "deal " + i);
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> corpus.getCardIds(1500));
+            assertThrows(IndexOutOfBoundsException.class, () -> corpus.getCardIds(-1));
+        }
+    }
+
+    @Test
+    void rejectsFileWithoutMagic() throws IOException {
+        Path path = dir.resolve("deals.bin");
+        DealCorpus.generate(path, 3, 1);
+        overwrite(path, 0, ByteBuffer.allocate(8).putLong(0, DealCorpus.MAGIC + 1));
+
+        IOException e = assertThrows(IOException.class, () -> new DealCorpus(path));
+        assertTrue(e.getMessage().contains("not a deal corpus"), e.getMessage());
+    }
+
+    @Test
+    void rejectsOtherVersion() throws IOException {
+        Path path = dir.resolve("deals.bin");
+        DealCorpus.generate(path, 3, 1);
+        overwrite(path, 8, ByteBuffer.allocate(4).putInt(0, DealCorpus.VERSION + 1));
+
+        IOException e = assertThrows(IOException.class, () -> new DealCorpus(path));
+        assertTrue(e.getMessage().contains("version " + (DealCorpus.VERSION + 1)), e.getMessage());
+    }
+
+    @Test
+    void rejectsTruncatedFile() throws IOException {
+        Path path = dir.resolve("deals.bin");
+        DealCorpus.generate(path, 3, 1);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+
+        assertThrows(IOException.class, () -> new DealCorpus(path));
+    }
+
+    private static void overwrite(Path path, long position, ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(bytes, position);
+        }
+    }
+}
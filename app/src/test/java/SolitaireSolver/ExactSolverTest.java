@@ -0,0 +1,60 @@
+package SolitaireSolver;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExactSolverTest {
+    @Test
+    void solvesTriviallyWinnablePosition() {
+        Solitaire game = Positions.of("KS | QS");
+        String state = game.getGameState();
+        long hash = game.getStateHash();
+
+        ExactSolver solver = new ExactSolver(1000, 1000, 10);
+        assertEquals(ExactSolver.Result.SOLVABLE, solver.solve(game));
+        assertEquals(1, solver.getSolutionLength());
+        assertEquals(state, game.getGameState());
+        assertEquals(hash, game.getStateHash());
+    }
+
+    @Test
+    void keepsWinningMovesWhenGivenJournal() {
+        Solitaire game = Positions.of("KS QS | KH");
+        MoveJournal journal = new MoveJournal();
+
+        ExactSolver solver = new ExactSolver(1000, 1000, 10);
+        assertEquals(ExactSolver.Result.SOLVABLE, solver.solve(game, journal));
+        assertTrue(game.checkWin());
+        assertEquals(solver.getSolutionLength(), journal.size());
+    }
+
+    @Test
+    void searchesStateAgainOnceCardIsTurnedUp() {
+        // Winning passes through states whose piles hold the same cards at the same depths as states already
+        // searched, with a card that was face down now face up
+        Solitaire game = Positions.of(
+                "KD 10S QC | JC 10D",
+                "9D KC QS | JD",
+                "KS QD | JS");
+
+        assertEquals(ExactSolver.Result.SOLVABLE, new ExactSolver(1_000_000, 10_000, 16).solve(game));
+    }
+
+    @Test
+    void provesUnsolvablePositionWithMovesLeft() {
+        // Not a dead end by DeadEnds, and every line from it was checked by an exhaustive search
+        Solitaire game = Positions.of(
+                "9C 9D | 10D",
+                "| QD",
+                "KD JS QC | QH JC",
+                "JH | KS",
+                "KH 10C | QS",
+                "JD | KC");
+        String state = game.getGameState();
+
+        assertFalse(DeadEnds.isDeadEnd(game));
+        assertEquals(ExactSolver.Result.UNSOLVABLE, new ExactSolver(1_000_000, 10_000, 16).solve(game));
+        assertEquals(state, game.getGameState());
+    }
+}
@@ -0,0 +1,62 @@
+package SolitaireSolver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutorTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void sharedPoolPlaysTheSameGamesAsPoolPerDeal() throws IOException {
+        List<String> fixed = Runs.solve(dir.resolve("fixed.csv"), "4", "6", "r", "--seed=11");
+        List<String> shared = Runs.solve(dir.resolve("shared.csv"), "4", "6", "r", "--seed=11",
+                "--executor=shared");
+        List<String> sharedAlias = Runs.solve(dir.resolve("alias.csv"), "4", "6", "r", "--seed=11",
+                "--shared-pool");
+
+        assertEquals(24, fixed.size());
+        assertEquals(fixed, shared);
+        assertEquals(fixed, sharedAlias);
+    }
+
+    @Test
+    void virtualThreadsPlayTheSameGamesAsPoolPerDeal() throws IOException {
+        List<String> fixed = Runs.solve(dir.resolve("fixed.csv"), "4", "6", "r", "--seed=13");
+        List<String> virtual = Runs.solve(dir.resolve("virtual.csv"), "4", "6", "r", "--seed=13",
+                "--executor=virtual");
+
+        assertEquals(fixed, virtual);
+    }
+
+    @Test
+    void virtualRolloutsPlayTheSameGamesAsPooledRollouts() throws IOException {
+        List<String> pooled = Runs.solve(dir.resolve("pooled.csv"), "2", "2", "m", "20", "5", "--seed=14",
+                "--rollout-threads=2");
+        List<String> virtual = Runs.solve(dir.resolve("virtual.csv"), "2", "2", "m", "20", "5", "--seed=14",
+                "--executor=virtual", "--rollout-threads=virtual");
+
+        assertEquals(pooled, virtual);
+    }
+
+    @Test
+    void sharedPoolFinishesDealsInOrder() throws IOException {
+        Path journal = dir.resolve("run.journal");
+        Runs.solve(dir.resolve("results.csv"), "3", "20", "g", "--seed=12", "--executor=shared",
+                "--journal=" + journal);
+
+        List<String> lines = Files.readAllLines(journal, StandardCharsets.UTF_8);
+        assertEquals(21, lines.size());
+        for (int i = 1; i < lines.size(); i++) {
+            assertTrue(lines.get(i).startsWith((i - 1) + " "), lines.get(i));
+        }
+    }
+}
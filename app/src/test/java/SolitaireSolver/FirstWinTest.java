@@ -0,0 +1,64 @@
+package SolitaireSolver;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FirstWinTest {
+    @AfterEach
+    void resetRun() {
+        Runs.reset();
+    }
+
+    @Test
+    void winCancelsTheDealsOtherThreads() {
+        Run.FIRST_WIN = true;
+        DealResult deal = new DealResult(0, Positions.of("KS | QS"), 2);
+        RunStatistics statistics = new RunStatistics('p', true, false);
+
+        Run.solveDeal(deal, 0, 'p', new SplittableRandom(1), statistics);
+        assertEquals(DealResult.WON, deal.getOutcome(0));
+        assertTrue(deal.isCancelled());
+
+        Run.solveDeal(deal, 1, 'p', new SplittableRandom(2), statistics);
+        assertEquals(DealResult.CANCELLED, deal.getOutcome(1));
+        assertEquals(0, deal.getMoves(1));
+        assertEquals(1, deal.getNumCancelled());
+        assertTrue(deal.isDone());
+    }
+
+    @Test
+    void winDoesNotCancelWithoutFirstWin() {
+        DealResult deal = new DealResult(0, Positions.of("KS | QS"), 2);
+        RunStatistics statistics = new RunStatistics('p', false, false);
+
+        Run.solveDeal(deal, 0, 'p', new SplittableRandom(1), statistics);
+        Run.solveDeal(deal, 1, 'p', new SplittableRandom(2), statistics);
+
+        assertFalse(deal.isCancelled());
+        assertEquals(2, deal.getNumWins());
+        assertEquals(0, deal.getNumCancelled());
+    }
+
+    @Test
+    void runningSolverStopsOnceDealIsCancelled() throws InterruptedException {
+        // So many simulations per move that the solver would not finish for minutes if it were not stopped
+        Run.FIRST_WIN = true;
+        Run.NUM_SIMULATIONS = 1_000_000;
+        DealResult deal = new DealResult(0, new Solitaire(new Deck(new SplittableRandom(3))), 1);
+        RunStatistics statistics = new RunStatistics('m', true, false);
+
+        Thread solver = new Thread(() -> Run.solveDeal(deal, 0, 'm', new SplittableRandom(4), statistics));
+        solver.start();
+        Thread.sleep(100);
+        deal.cancel();
+        solver.join(10_000);
+
+        assertFalse(solver.isAlive());
+        assertEquals(DealResult.CANCELLED, deal.getOutcome(0));
+        assertTrue(deal.isDone());
+    }
+}
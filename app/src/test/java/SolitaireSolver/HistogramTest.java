@@ -0,0 +1,74 @@
+package SolitaireSolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramTest {
+    @Test
+    void givesKnownPercentilesOfFixedSample() {
+        Histogram histogram = new Histogram();
+        for (int value = 100; value >= 1; value--) {
+            histogram.record(value);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(1, histogram.getPercentile(0));
+        assertEquals(50, histogram.getPercentile(50));
+        assertEquals(90, histogram.getPercentile(90));
+        assertEquals(99, histogram.getPercentile(99));
+        assertEquals(100, histogram.getPercentile(100));
+
+        Map<String, Double> averages = histogram.getAverages();
+        assertEquals(50.5, averages.get("Mean"));
+        assertEquals(50.5, averages.get("Median"));
+        assertEquals(90.0, averages.get("P90"));
+        assertEquals(99.0, averages.get("P99"));
+        assertEquals(1.0, averages.get("Min"));
+        assertEquals(100.0, averages.get("Max"));
+        assertEquals(5050.0, averages.get("Total"));
+        assertEquals(1.0, averages.get("Mode Count"));
+    }
+
+    @Test
+    void reportsLargeValuesToWithinBucketWidth() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        long p90 = histogram.getPercentile(90);
+        assertTrue(p90 <= 900_000 && p90 > 900_000 - 900_000 / 64, "P90 was " + p90);
+        assertEquals(1000, histogram.getPercentile(0));
+        long p100 = histogram.getPercentile(100);
+        assertTrue(p100 <= 1_000_000 && p100 > 1_000_000 - 1_000_000 / 64, "P100 was " + p100);
+        assertEquals(1_000_000.0, histogram.getAverages().get("Max"));
+    }
+
+    @Test
+    void emptyHistogramHasNoAverages() {
+        Histogram histogram = new Histogram();
+
+        assertEquals(0, histogram.getCount());
+        assertTrue(histogram.getAverages().isEmpty());
+    }
+
+    @Test
+    void singleValueIsEveryAverage() {
+        Histogram histogram = new Histogram();
+        histogram.record(123_456_789);
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(123_456_789, histogram.getPercentile(0));
+        assertEquals(123_456_789, histogram.getPercentile(50));
+        assertEquals(123_456_789, histogram.getPercentile(100));
+
+        Map<String, Double> averages = histogram.getAverages();
+        for (String key : new String[]{"Mean", "Median", "P90", "P99", "Mode", "Min", "Max", "Total"}) {
+            assertEquals(123_456_789.0, averages.get(key), key);
+        }
+        assertEquals(1.0, averages.get("Mode Count"));
+    }
+}
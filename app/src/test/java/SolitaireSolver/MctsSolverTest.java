@@ -0,0 +1,67 @@
+package SolitaireSolver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MctsSolverTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void winsWinnablePosition() {
+        Solitaire game = Positions.of(
+                "KD 10S QC | JC 10D",
+                "9D KC QS | JD",
+                "KS QD | JS");
+
+        int result = new MctsSolver(10, 0.25, new SplittableRandom(1)).solve(game);
+        assertTrue(result > 0, "result was " + result);
+    }
+
+    @Test
+    void neverWinsUnsolvablePosition() {
+        // Proven unsolvable by ExactSolverTest, though moves are left
+        Solitaire game = Positions.of(
+                "9C 9D | 10D",
+                "| QD",
+                "KD JS QC | QH JC",
+                "JH | KS",
+                "KH 10C | QS",
+                "JD | KC");
+
+        MctsSolver solver = new MctsSolver(10, 0.25, new SplittableRandom(2));
+        assertTrue(solver.solve(game) <= 0);
+        assertTrue(solver.getRollouts() > 0);
+    }
+
+    @Test
+    void sameSeedPlaysTheSameGame() {
+        Deck deck = new Deck(new SplittableRandom(3));
+        MctsSolver first = new MctsSolver(5, 0.25, new SplittableRandom(4));
+        MctsSolver second = new MctsSolver(5, 0.25, new SplittableRandom(4));
+
+        Solitaire firstGame = new Solitaire(new Deck(deck.toCardIds()));
+        Solitaire secondGame = new Solitaire(new Deck(deck.toCardIds()));
+        assertEquals(first.solve(firstGame), second.solve(secondGame));
+        assertEquals(first.getRollouts(), second.getRollouts());
+        assertEquals(Positions.describe(firstGame), Positions.describe(secondGame));
+    }
+
+    @Test
+    void seededRunsPlayTheSameGames() throws IOException {
+        List<String> first = Runs.solve(dir.resolve("first.csv"), "2", "2", "u", "10", "3", "--seed=18",
+                "--exploration=0.5");
+        List<String> second = Runs.solve(dir.resolve("second.csv"), "2", "2", "u", "10", "3", "--seed=18",
+                "--exploration=0.5");
+
+        assertEquals(4, first.size());
+        assertEquals(first, second);
+    }
+}
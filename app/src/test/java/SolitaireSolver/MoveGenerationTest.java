@@ -0,0 +1,160 @@
+package SolitaireSolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveGenerationTest {
+    private static final int NUM_DEALS = 30;
+    private static final int MAX_STEPS = 200;
+
+    @Test
+    void generatesExactlyTheMovesFoundByCheckingEveryPile() {
+        SplittableRandom random = new SplittableRandom(22);
+        for (int deal = 0; deal < NUM_DEALS; deal++) {
+            Solitaire game = new Solitaire(new Deck(random));
+            ArrayDeque<MoveUndo> undos = new ArrayDeque<>();
+            for (int step = 0; step < MAX_STEPS; step++) {
+                List<String> expected = findMoves(game);
+                ArrayList<Move> moves = game.getPossibleMoves();
+                List<String> generated = new ArrayList<>();
+                for (Move move : moves) {
+                    generated.add(describe(move.getCard(), move.getSrc(),
+                            move.getDst() == null ? -1 : game.getPileNum(move.getDst())));
+                }
+                Collections.sort(generated);
+                assertEquals(expected, generated, Positions.describe(game));
+
+                if (moves.isEmpty() || game.checkWin()) {
+                    break;
+                }
+                playOrUndo(game, moves, undos, random);
+            }
+        }
+    }
+
+    @Test
+    void destinationIndexesMatchRebuildAfterMakeAndUnmake() {
+        SplittableRandom random = new SplittableRandom(23);
+        for (int deal = 0; deal < NUM_DEALS; deal++) {
+            Solitaire game = new Solitaire(new Deck(random));
+            ArrayDeque<MoveUndo> undos = new ArrayDeque<>();
+            for (int step = 0; step < MAX_STEPS; step++) {
+                Solitaire rebuilt = new Solitaire(game);
+                rebuilt.rebuildCardMasks();
+                assertEquals(rebuilt.emptyPiles, game.emptyPiles, Positions.describe(game));
+                assertArrayEquals(rebuilt.acceptingPiles, game.acceptingPiles, Positions.describe(game));
+                assertEquals(rebuilt.getHiddenCardMask(), game.getHiddenCardMask(), Positions.describe(game));
+
+                ArrayList<Move> moves = game.getPossibleMoves();
+                if (moves.isEmpty() || game.checkWin()) {
+                    break;
+                }
+                playOrUndo(game, moves, undos, random);
+            }
+        }
+    }
+
+    @Test
+    void nextFoundationCardsFollowFoundationCards() {
+        SplittableRandom random = new SplittableRandom(24);
+        for (int deal = 0; deal < NUM_DEALS; deal++) {
+            Solitaire game = new Solitaire(new Deck(random));
+            for (int step = 0; step < MAX_STEPS; step++) {
+                long cards = game.foundation.getCards();
+                long expected = 0;
+                for (int id = 0; id < 52; id++) {
+                    boolean previousPlayed = id % 13 == 0 || (cards & (1L << (id - 1))) != 0;
+                    if ((cards & (1L << id)) == 0 && previousPlayed) {
+                        expected |= 1L << id;
+                    }
+                }
+                assertEquals(expected, game.foundation.getNextCards());
+
+                ArrayList<Move> moves = game.getPossibleMoves();
+                if (moves.isEmpty() || game.checkWin()) {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+    }
+
+    /**
+     * Makes a random move, or now and then undoes the last one.
+     */
+    private static void playOrUndo(Solitaire game, ArrayList<Move> moves, ArrayDeque<MoveUndo> undos,
+                                   SplittableRandom random) {
+        if (!undos.isEmpty() && random.nextInt(4) == 0) {
+            game.unmakeMove(undos.pop());
+        }
+        else {
+            undos.push(game.makeMove(moves.get(random.nextInt(moves.size()))));
+        }
+    }
+
+    /**
+     * Finds every move by checking each movable card against every pile and the foundation.
+     * @return the moves, described and sorted
+     */
+    private static List<String> findMoves(Solitaire game) {
+        List<String> moves = new ArrayList<>();
+        Stock stock = game.getStock();
+        if (!stock.getStock().isEmpty()) {
+            for (byte index : stock.getDrawOrder()) {
+                findMovesForCard(game, stock.getStock().get(index), 7, true, moves);
+            }
+        }
+        for (int p = 0; p < 7; p++) {
+            CardStack buildStack = game.getPiles()[p].getBuildStack();
+            for (int i = 0; i < buildStack.size(); i++) {
+                findMovesForCard(game, buildStack.get(i), p, i == buildStack.size() - 1, moves);
+            }
+        }
+        Collections.sort(moves);
+        return moves;
+    }
+
+    private static void findMovesForCard(Solitaire game, Card card, int src, boolean onTop, List<String> moves) {
+        if (onTop && getFoundationCount(game.foundation, card.getSuit()) == card.getRank() - 1) {
+            moves.add(describe(card, src, -1));
+        }
+
+        Pile[] piles = game.getPiles();
+        boolean alreadyAlone = src != 7 && piles[src].getHiddenCards().isEmpty() &&
+                piles[src].getBottomCard() == card;
+        boolean emptyPileTaken = false;
+        for (int i = 0; i < 7; i++) {
+            Card top = piles[i].getTopCard();
+            if (top == null) {
+                // Empty piles are interchangeable, so only the first one takes a King
+                if (card.getRank() == 13 && !alreadyAlone && !emptyPileTaken) {
+                    moves.add(describe(card, src, i));
+                }
+                emptyPileTaken = true;
+            }
+            else if (i != src && top.getRank() == card.getRank() + 1 && top.isBlack() != card.isBlack()) {
+                moves.add(describe(card, src, i));
+            }
+        }
+    }
+
+    private static int getFoundationCount(Foundation foundation, char suit) {
+        return switch (suit) {
+            case 'C' -> foundation.getClubs();
+            case 'D' -> foundation.getDiamonds();
+            case 'H' -> foundation.getHearts();
+            default -> foundation.getSpades();
+        };
+    }
+
+    private static String describe(Card card, int src, int dst) {
+        return card + " " + src + ">" + (dst < 0 ? "F" : String.valueOf(dst));
+    }
+}
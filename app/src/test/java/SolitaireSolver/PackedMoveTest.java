@@ -0,0 +1,122 @@
+package SolitaireSolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedMoveTest {
+    @Test
+    void packRoundTripsEveryField() {
+        int[] scores = {-128, -100, -1, 0, 1, 37, 127};
+        for (int cardId = 0; cardId < 52; cardId++) {
+            for (int src = 0; src <= 7; src++) {
+                for (int dst : new int[]{0, 3, 6, PackedMove.FOUNDATION}) {
+                    for (int moveType = 0; moveType < 4; moveType++) {
+                        for (int heuristic : scores) {
+                            for (int priority : scores) {
+                                int move = PackedMove.pack(cardId, src, dst, moveType, heuristic, priority);
+                                assertEquals(cardId, PackedMove.getCardId(move));
+                                assertEquals(src, PackedMove.getSrc(move));
+                                assertEquals(dst, PackedMove.getDst(move));
+                                assertEquals(moveType, PackedMove.getMoveType(move));
+                                assertEquals(heuristic, PackedMove.getHeuristic(move));
+                                assertEquals(priority, PackedMove.getPriority(move));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void packedMovesPlayLikeTheirMoves() {
+        SplittableRandom random = new SplittableRandom(8);
+        MoveBuffer buffer = new MoveBuffer();
+        MoveUndo undo = new MoveUndo();
+
+        for (int deal = 0; deal < 30; deal++) {
+            Solitaire game = new Solitaire(new Deck(random));
+            for (int i = 0; i < 100; i++) {
+                game.generateMoves(buffer);
+                if (buffer.isEmpty()) {
+                    break;
+                }
+                for (int j = 0; j < buffer.size(); j++) {
+                    int packed = buffer.get(j);
+                    Move move = game.toMove(packed);
+                    assertEquals(PackedMove.getCardId(packed), move.getCard().getId());
+                    assertEquals(PackedMove.getSrc(packed), move.getSrc());
+                    assertEquals(PackedMove.getHeuristic(packed), move.getHeuristic());
+                    assertEquals(PackedMove.getPriority(packed), move.getPriority());
+
+                    Solitaire byMove = new Solitaire(game);
+                    byMove.makeMove(byMove.toMove(packed));
+                    game.makeMove(packed, undo);
+                    assertEquals(Positions.describe(byMove), Positions.describe(game));
+                    assertEquals(byMove.getStateHash(), game.getStateHash());
+                    game.unmakeMove(undo);
+                }
+                game.makeMove(buffer.get(random.nextInt(buffer.size())), undo);
+            }
+        }
+    }
+
+    @Test
+    void bufferPicksTheSameBestMoveAsSolitaire() {
+        SplittableRandom random = new SplittableRandom(10);
+        MoveBuffer buffer = new MoveBuffer();
+        MoveUndo undo = new MoveUndo();
+
+        for (int deal = 0; deal < 30; deal++) {
+            Solitaire game = new Solitaire(new Deck(random));
+            for (int i = 0; i < 100; i++) {
+                int cardIndex = game.getStock().getCardIndex();
+                ArrayList<Move> moves = game.getPossibleMoves();
+                game.getStock().setCardIndex(cardIndex);
+                game.generateMoves(buffer);
+                if (buffer.isEmpty()) {
+                    break;
+                }
+                Move best = game.getBestMoveWithPriority(moves);
+                Move packedBest = game.toMove(buffer.getBestMoveWithPriority());
+                assertEquals(best.getCard(), packedBest.getCard());
+                assertEquals(best.getDst(), packedBest.getDst());
+                game.makeMove(buffer.get(random.nextInt(buffer.size())), undo);
+            }
+        }
+    }
+
+    @Test
+    void bufferGrowsAndSortsStably() {
+        MoveBuffer buffer = new MoveBuffer();
+        for (int i = 0; i < 200; i++) {
+            buffer.add(PackedMove.pack(i % 52, i % 8, 0, 0, i % 5, i % 3));
+        }
+        assertEquals(200, buffer.size());
+
+        buffer.sortByHeuristic();
+        for (int i = 1; i < buffer.size(); i++) {
+            int previous = buffer.get(i - 1);
+            int move = buffer.get(i);
+            int order = Integer.compare(PackedMove.getHeuristic(previous), PackedMove.getHeuristic(move));
+            if (order == 0) {
+                order = Integer.compare(PackedMove.getPriority(previous), PackedMove.getPriority(move));
+            }
+            assertTrue(order >= 0, "moves " + (i - 1) + " and " + i + " are out of order");
+        }
+
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+        for (int id = 0; id < 52; id++) {
+            buffer.add(PackedMove.pack(id, 0, 0, 0, id % 2, 0));
+        }
+        buffer.sortByHeuristic();
+        for (int i = 0; i < 52; i++) {
+            assertEquals(i < 26 ? i * 2 + 1 : (i - 26) * 2, PackedMove.getCardId(buffer.get(i)));
+        } // Tied moves keep the order they were added in
+    }
+}
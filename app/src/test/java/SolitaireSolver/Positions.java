@@ -0,0 +1,106 @@
+package SolitaireSolver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Positions class building games with chosen piles for the tests.
+ * Each pile is given as its face down cards then its build stack, bottom card first, separated by "|", e.g.
+ * "3C 6H | 5C". The stock is empty and every other card is in the foundation, so the cards left out of the
+ * piles must be the lowest of their suit.
+ */
+final class Positions {
+    private Positions() {
+    }
+
+    /**
+     * Builds a game with the given piles.
+     * @param piles up to 7 piles, the rest are empty
+     * @return the game, with its hashes and card masks computed
+     */
+    static Solitaire of(String... piles) {
+        Solitaire game = new Solitaire(new Deck());
+        byte[] locations = new byte[Zobrist.NUM_CARDS];
+        long placed = 0;
+        for (int i = 0; i < game.getPiles().length; i++) {
+            String[] parts = i < piles.length ? piles[i].split("\\|", -1) : new String[]{"", ""};
+            ArrayList<Card> hidden = parseCards(parts[0]);
+            ArrayList<Card> build = parseCards(parts.length > 1 ? parts[1] : "");
+            for (ArrayList<Card> cards : List.of(hidden, build)) {
+                for (Card card : cards) {
+                    if ((placed & (1L << card.getId())) != 0) {
+                        throw new IllegalArgumentException(card + " is in more than one pile.");
+                    }
+                    placed |= 1L << card.getId();
+                    locations[card.getId()] = (byte) i;
+                }
+            }
+            game.getPiles()[i].setHiddenCards(hidden);
+            game.getPiles()[i].setBuildStack(build);
+        }
+
+        Foundation foundation = game.getFoundation();
+        int[] counts = new int[4];
+        for (int suit = 0; suit < 4; suit++) {
+            long suitPlaced = (placed >>> (suit * 13)) & ((1L << 13) - 1);
+            counts[suit] = suitPlaced == 0 ? 13 : Long.numberOfTrailingZeros(suitPlaced);
+            if (Long.bitCount(suitPlaced) != 13 - counts[suit]) {
+                throw new IllegalArgumentException("The cards left out of suit " + "CDHS".charAt(suit) +
+                        " are not the lowest of the suit.");
+            }
+        }
+        foundation.setClubs(counts[0]);
+        foundation.setDiamonds(counts[1]);
+        foundation.setHearts(counts[2]);
+        foundation.setSpades(counts[3]);
+
+        game.getStock().setStock(new ArrayList<>());
+        game.setLocations(locations);
+        game.rehash();
+        game.rebuildCardMasks();
+        return game;
+    }
+
+    /**
+     * Describes a game with every pile separated and its face down cards marked, as getGameState runs the piles
+     * together.
+     * @param game the game to describe
+     * @return the description
+     */
+    static String describe(Solitaire game) {
+        StringBuilder state = new StringBuilder();
+        for (Card card : game.getStock().getStock()) {
+            state.append(card);
+        }
+        for (Pile pile : game.getPiles()) {
+            state.append('/');
+            for (Card card : pile.getHiddenCards()) {
+                state.append(card);
+            }
+            state.append('|');
+            for (Card card : pile.getBuildStack()) {
+                state.append(card);
+            }
+        }
+        return state.append('/').append(game.getFoundation().getFoundationState()).toString();
+    }
+
+    private static ArrayList<Card> parseCards(String cards) {
+        ArrayList<Card> parsed = new ArrayList<>();
+        for (String name : cards.trim().split("\\s+")) {
+            if (name.isEmpty()) {
+                continue;
+            }
+            char suit = name.charAt(name.length() - 1);
+            String rank = name.substring(0, name.length() - 1);
+            parsed.add(Card.getCard(switch (rank) {
+                case "A" -> 1;
+                case "J" -> 11;
+                case "Q" -> 12;
+                case "K" -> 13;
+                default -> Integer.parseInt(rank);
+            }, suit));
+        }
+        return parsed;
+    }
+}
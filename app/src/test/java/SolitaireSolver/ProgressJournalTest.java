@@ -0,0 +1,106 @@
+package SolitaireSolver;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProgressJournalTest {
+    private static final String CONFIGURATION = "seed=1 threads=2 solver=p";
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void resetRun() {
+        Runs.reset();
+    }
+
+    @Test
+    void resumesAfterTruncatedLastLine() throws IOException {
+        Path path = dir.resolve("journal.txt");
+        try (ProgressJournal journal = new ProgressJournal(path, CONFIGURATION, false)) {
+            journal.append(deal(0, DealResult.WON, DealResult.LOST));
+            journal.append(deal(1, DealResult.UNKNOWN, DealResult.CANCELLED));
+        }
+        Files.writeString(path, "2 15 0 WL 3", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (ProgressJournal journal = new ProgressJournal(path, CONFIGURATION, true)) {
+            List<DealResult> deals = journal.getCompletedDeals();
+            assertEquals(2, deals.size());
+            assertTrue(journal.isCompleted(0));
+            assertTrue(journal.isCompleted(1));
+            assertFalse(journal.isCompleted(2));
+
+            DealResult restored = deals.get(1);
+            assertEquals(1, restored.getDealIndex());
+            assertEquals(DealResult.UNKNOWN, restored.getOutcome(0));
+            assertEquals(DealResult.CANCELLED, restored.getOutcome(1));
+            assertEquals(11, restored.getMoves(0));
+            assertEquals(12, restored.getMoves(1));
+            assertEquals(40.0, restored.getDurationMs());
+
+            journal.append(deal(2, DealResult.WON, DealResult.WON));
+        }
+
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        assertEquals(4, lines.size());
+        assertEquals("# " + CONFIGURATION, lines.get(0));
+        try (ProgressJournal journal = new ProgressJournal(path, CONFIGURATION, true)) {
+            assertEquals(3, journal.getCompletedDeals().size());
+            assertTrue(journal.isCompleted(2));
+        }
+    }
+
+    @Test
+    void rejectsJournalWithDifferentHeader() throws IOException {
+        Path path = dir.resolve("journal.txt");
+        try (ProgressJournal journal = new ProgressJournal(path, CONFIGURATION, false)) {
+            journal.append(deal(0, DealResult.WON, DealResult.LOST));
+        }
+
+        IOException e = assertThrows(IOException.class,
+                () -> new ProgressJournal(path, "seed=2 threads=2 solver=p", true));
+        assertTrue(e.getMessage().contains("different configuration"), e.getMessage());
+    }
+
+    @Test
+    void resumesRunStartedWithoutSeed() throws IOException {
+        Path path = dir.resolve("run.journal");
+        Run.main(new String[]{"1", "4", "p", "--journal=" + path});
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        assertEquals(5, lines.size());
+        Files.write(path, lines.subList(0, 3), StandardCharsets.UTF_8);
+        // As if the run was killed after its first two deals
+        Runs.reset();
+
+        Run.SEED++;
+        // A new run without --seed picks its own seed
+        Run.main(new String[]{"1", "4", "p", "--journal=" + path, "--resume"});
+        List<String> resumed = Files.readAllLines(path, StandardCharsets.UTF_8);
+        assertEquals(lines.size(), resumed.size());
+        assertEquals(lines.get(0), resumed.get(0));
+        for (int i = 3; i < lines.size(); i++) {
+            assertEquals(withoutTimes(lines.get(i)), withoutTimes(resumed.get(i)));
+        } // The same deals were played again
+    }
+
+    private static String withoutTimes(String line) {
+        String[] fields = line.split(" ");
+        return fields[0] + " " + String.join(" ", Arrays.copyOfRange(fields, 3, fields.length));
+    }
+
+    private static DealResult deal(int dealIndex, byte first, byte second) {
+        return DealResult.restore(dealIndex, null, new byte[]{first, second},
+                new int[]{10 * dealIndex + 1, 10 * dealIndex + 2}, 20 * (dealIndex + 1), 0);
+    }
+}
@@ -0,0 +1,56 @@
+package SolitaireSolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepetitionTableTest {
+    @Test
+    void countsRepeatedStates() {
+        RepetitionTable table = new RepetitionTable();
+
+        assertEquals(0, table.getCount(42));
+        assertEquals(1, table.add(42));
+        assertEquals(2, table.add(42));
+        assertEquals(1, table.add(0));
+        assertEquals(2, table.getCount(42));
+        assertEquals(1, table.getCount(0));
+        assertEquals(0, table.getCount(43));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    void keepsCountsWhenGrowing() {
+        RepetitionTable table = new RepetitionTable(16);
+        SplittableRandom random = new SplittableRandom(5);
+        long[] hashes = new long[5000];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = random.nextLong();
+            table.add(hashes[i]);
+            if (i % 3 == 0) {
+                table.add(hashes[i]);
+            }
+        }
+
+        assertEquals(hashes.length, table.size());
+        for (int i = 0; i < hashes.length; i++) {
+            assertEquals(i % 3 == 0 ? 2 : 1, table.getCount(hashes[i]));
+        }
+    }
+
+    @Test
+    void clearForgetsEveryState() {
+        RepetitionTable table = new RepetitionTable();
+        for (int round = 0; round < 100; round++) {
+            for (long hash = 0; hash < 50; hash++) {
+                assertEquals(0, table.getCount(hash * 31 + round), "round " + round);
+                table.add(hash * 31 + round);
+            }
+            assertEquals(50, table.size());
+            table.clear();
+            assertEquals(0, table.size());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package SolitaireSolver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultsWriterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void writesCsvWithHeader() throws IOException {
+        Path path = dir.resolve("results.csv");
+        try (ResultsWriter writer = new ResultsWriter(path)) {
+            writer.write(7, 0, 1, 'p', 10, 5, "won", 42, 1234, 99);
+            writer.write(7, 1, 0, 'p', 10, 5, "lost", 17, 567, 0);
+        }
+
+        assertEquals(List.of(String.join(",", ResultsWriter.COLUMNS), "7,0,1,p,10,5,won,42,1234,99",
+                "7,1,0,p,10,5,lost,17,567,0"), Files.readAllLines(path, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writesJsonLinesWithoutHeader() throws IOException {
+        Path path = dir.resolve("results.jsonl");
+        try (ResultsWriter writer = new ResultsWriter(path)) {
+            writer.write(7, 3, 2, 'm', 0, 100, "unknown", 0, 55, 800);
+        }
+
+        assertEquals(List.of("{\"seed\":7,\"deal\":3,\"thread\":2,\"solver\":\"m\",\"randomness\":0," +
+                "\"simulations\":100,\"result\":\"unknown\",\"moves\":0,\"nanos\":55,\"rollouts\":800}"),
+                Files.readAllLines(path, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void gzipOutputMatchesPlainOutput() throws IOException {
+        // Enough records to fill the buffer several times over
+        Path plain = dir.resolve("results.csv");
+        Path gzip = dir.resolve("results.csv.gz");
+        try (ResultsWriter plainWriter = new ResultsWriter(plain); ResultsWriter gzipWriter = new ResultsWriter(gzip)) {
+            for (int deal = 0; deal < 10_000; deal++) {
+                plainWriter.write(-deal, deal, deal % 4, 'x', 0, 0, "cancelled", deal, deal * 31L, deal * 7L);
+                gzipWriter.write(-deal, deal, deal % 4, 'x', 0, 0, "cancelled", deal, deal * 31L, deal * 7L);
+            }
+        }
+
+        byte[] expected = Files.readAllBytes(plain);
+        assertTrue(expected.length > 1 << 17);
+        ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(gzip))) {
+            in.transferTo(inflated);
+        } // GZIPInputStream checks the CRC and length in the trailer
+        assertArrayEquals(expected, inflated.toByteArray());
+        assertTrue(Files.size(gzip) < expected.length);
+    }
+
+    @Test
+    void gzipJsonLinesIsDetectedBeforeExtension() throws IOException {
+        Path path = dir.resolve("results.jsonl.gz");
+        try (ResultsWriter writer = new ResultsWriter(path)) {
+            writer.write(1, 0, 0, 'g', 0, 0, "won", 90, 10, 0);
+        }
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(path))) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(text.startsWith("{\"seed\":1,"), text);
+            assertTrue(text.endsWith("}\n"), text);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package SolitaireSolver;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RolloutTaskTest {
+    @AfterEach
+    void resetRun() {
+        Runs.reset();
+    }
+
+    @Test
+    void virtualLeavesScoreLikePoolLeaves() {
+        Run.RANDOMNESS_PERCENTAGE = 30;
+        ForkJoinPool pool = new ForkJoinPool(3);
+        Semaphore permits = new Semaphore(3);
+        int compared = 0;
+        try {
+            for (int seed = 0; seed < 10; seed++) {
+                Solitaire game = new Solitaire(new Deck(new SplittableRandom(seed)));
+                int cardIndex = game.getStock().getCardIndex();
+                ArrayList<Move> pooled = game.getPossibleMoves();
+                game.getStock().setCardIndex(cardIndex);
+                ArrayList<Move> virtual = game.getPossibleMoves();
+                // Generating moves draws through the stock, so both lists are generated from the same card index
+
+                boolean pooledWon = RolloutTask.simulateMoves(game, pooled, 20, pool, new SplittableRandom(seed));
+                boolean virtualWon = RolloutTask.simulateMovesVirtual(game, virtual, 20, permits,
+                        new SplittableRandom(seed));
+                assertEquals(pooledWon, virtualWon);
+                if (pooledWon) {
+                    continue;
+                } // Leaves stop at the first win, so the scores then depend on timing
+                for (int i = 0; i < pooled.size(); i++) {
+                    assertEquals(pooled.get(i).getMonteCarloScore(), virtual.get(i).getMonteCarloScore());
+                }
+                compared++;
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(compared > 0);
+        assertEquals(3, permits.availablePermits());
+    }
+
+    @Test
+    void interruptedCallerStopsLeavesAndKeepsInterrupt() {
+        Solitaire game = new Solitaire(new Deck(new SplittableRandom(20)));
+        String state = Positions.describe(game);
+        ArrayList<Move> moves = game.getPossibleMoves();
+        Semaphore permits = new Semaphore(2);
+
+        Thread.currentThread().interrupt();
+        boolean won = RolloutTask.simulateMovesVirtual(game, moves, 10_000, permits, new SplittableRandom(21));
+
+        assertTrue(Thread.interrupted());
+        assertFalse(won);
+        assertEquals(2, permits.availablePermits());
+        // Every leaf has finished and given back its permit
+        assertEquals(state, Positions.describe(game));
+    }
+}
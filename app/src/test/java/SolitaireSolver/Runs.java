@@ -0,0 +1,72 @@
+package SolitaireSolver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs class running Run.main for the tests and putting back the settings it leaves behind.
+ * Run keeps its settings in static fields, so a test that runs it must call reset afterwards, or the next test
+ * would run with the same executor, journal or results file.
+ */
+final class Runs {
+    private Runs() {
+    }
+
+    /**
+     * Runs Run.main with a results file and returns the records, sorted, without their times.
+     * @param results the results file to write
+     * @param args the arguments to Run.main, without '--results'
+     * @return each record's deal, thread, result and moves, in deal then thread order
+     * @throws IOException if the results file cannot be read
+     */
+    static List<String> solve(Path results, String... args) throws IOException {
+        String[] withResults = Arrays.copyOf(args, args.length + 1);
+        withResults[args.length] = "--results=" + results;
+        try {
+            Run.main(withResults);
+        } finally {
+            reset();
+        }
+
+        List<String> lines = Files.readAllLines(results, StandardCharsets.UTF_8);
+        List<String> records = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split(",");
+            records.add(String.join(",", fields[1], fields[2], fields[6], fields[7]));
+        }
+        records.sort(null);
+        return records;
+    }
+
+    /**
+     * Puts every setting Run.main can change back to its default, except SEED.
+     */
+    static void reset() {
+        Run.SHARED_POOL = false;
+        Run.VIRTUAL_THREADS = false;
+        Run.VIRTUAL_ROLLOUTS = false;
+        Run.FIRST_WIN = false;
+        Run.VERBOSE = false;
+        Run.RESULTS = null;
+        Run.CORPUS = null;
+        Run.JOURNAL = null;
+        Run.CACHE = null;
+        Run.CACHE_CONFIGURATION = null;
+        Run.CACHE_SIZE = 100_000;
+        Run.ROLLOUT_POOL = null;
+        Run.SUCCESSIVE_HALVING = false;
+        Run.UCT_EXPLORATION = 0.25;
+        Run.EXACT_NODE_LIMIT = 10_000_000;
+        Run.EXACT_TIME_LIMIT_MS = 60_000;
+        Run.EXACT_TABLE_BITS = 20;
+        Run.ENDGAME_THRESHOLD = 0;
+        Run.ENDGAME_NODE_LIMIT = 500;
+        Run.RANDOMNESS_PERCENTAGE = 0;
+        Run.NUM_SIMULATIONS = 0;
+    }
+}
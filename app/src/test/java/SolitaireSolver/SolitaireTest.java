@@ -0,0 +1,119 @@
+package SolitaireSolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolitaireTest {
+    private static final int NUM_DEALS = 50;
+    private static final int MAX_MOVES = 150;
+
+    @Test
+    void unmakingRandomMovesRestoresTheGame() {
+        SplittableRandom random = new SplittableRandom(1);
+        MoveBuffer moves = new MoveBuffer();
+        MoveJournal journal = new MoveJournal();
+
+        for (int deal = 0; deal < NUM_DEALS; deal++) {
+            Solitaire game = new Solitaire(new Deck(random));
+            ArrayList<String> states = new ArrayList<>();
+            ArrayList<Long> hashes = new ArrayList<>();
+
+            for (int i = 0; i < MAX_MOVES; i++) {
+                game.generateMoves(moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                states.add(game.getGameState());
+                hashes.add(game.getStateHash());
+                journal.makeMove(game, moves.get(random.nextInt(moves.size())));
+                assertMatchesRecompute(game);
+            }
+
+            while (journal.size() > 0) {
+                journal.rewind(game, journal.size() - 1);
+                assertEquals(states.get(journal.size()), game.getGameState());
+                assertEquals((long) hashes.get(journal.size()), game.getStateHash());
+                assertMatchesRecompute(game);
+            }
+        }
+    }
+
+    @Test
+    void unmakingEachMoveRestoresWhatGameStateCopySaved() {
+        SplittableRandom random = new SplittableRandom(6);
+        MoveUndo undo = new MoveUndo();
+
+        for (int deal = 0; deal < NUM_DEALS; deal++) {
+            Solitaire game = new Solitaire(new Deck(random));
+            for (int i = 0; i < MAX_MOVES; i++) {
+                ArrayList<Move> moves = game.getPossibleMoves();
+                if (moves.isEmpty()) {
+                    break;
+                }
+                GameStateCopy copy = new GameStateCopy(game);
+                for (Move move : moves) {
+                    game.makeMove(move, undo);
+                    Solitaire restored = new Solitaire(game);
+                    copy.restoreGameState(restored);
+                    game.unmakeMove(undo);
+                    assertEquals(Positions.describe(restored), Positions.describe(game));
+                    assertEquals(restored.getStock().getCardIndex(), game.getStock().getCardIndex());
+                    assertEquals(restored.getStateHash(), game.getStateHash());
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+    }
+
+    /**
+     * Checks the incrementally updated hashes, card masks and location table against ones computed from
+     * scratch.
+     * @param game the game to check
+     */
+    private static void assertMatchesRecompute(Solitaire game) {
+        assertEquals(Zobrist.hash(game), game.getStateHash());
+        assertEquals(Zobrist.cardHash(game), game.cardHash);
+        for (int i = 0; i < game.getPiles().length; i++) {
+            assertEquals(Zobrist.pileHash(game.getPiles()[i]), game.pileHashes[i]);
+        }
+
+        Solitaire rebuilt = new Solitaire(game);
+        rebuilt.rebuildCardMasks();
+        assertEquals(rebuilt.hiddenCards, game.hiddenCards);
+        assertEquals(rebuilt.topCards, game.topCards);
+        assertEquals(rebuilt.emptyPiles, game.emptyPiles);
+        assertArrayEquals(rebuilt.acceptingPiles, game.acceptingPiles);
+
+        for (int i = 0; i < game.getPiles().length; i++) {
+            Pile pile = game.getPiles()[i];
+            for (Card card : pile.getHiddenCards()) {
+                assertEquals(i, game.getLocation(card));
+            }
+            for (Card card : pile.getBuildStack()) {
+                assertEquals(i, game.getLocation(card));
+            }
+        }
+        for (Card card : game.getStock().getStock()) {
+            assertEquals(7, game.getLocation(card));
+        }
+    }
+
+    @Test
+    void kingMovesOnlyToFirstEmptyPile() {
+        // KH can go to piles 0, 2 and 6 or the foundation. KS, KC and KD are already alone in their piles, so
+        // moving them to an empty pile would only swap which pile is empty
+        Solitaire game = Positions.of("", "QS | KH", "", "| KS", "| KC", "| KD");
+
+        ArrayList<String> moves = new ArrayList<>();
+        for (Move move : game.getPossibleMoves()) {
+            moves.add(move.getCard() + ">" + (move.getDst() == null ? "F" : game.getPileNum(move.getDst())));
+        }
+        moves.sort(null);
+        assertEquals(List.of("KC>F", "KD>F", "KH>0", "KH>F"), moves);
+    }
+}
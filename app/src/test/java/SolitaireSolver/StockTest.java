@@ -0,0 +1,85 @@
+package SolitaireSolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockTest {
+    private static ArrayList<Card> firstCards(int size) {
+        ArrayList<Card> cards = new ArrayList<>();
+        for (int id = 0; id < size; id++) {
+            cards.add(Card.getCard(id));
+        }
+        return cards;
+    }
+
+    @Test
+    void drawOrderMatchesDrawing() {
+        for (int size = 1; size <= Stock.MAX_CARDS; size++) {
+            for (int start = 0; start < size; start++) {
+                Stock drawing = new Stock(firstCards(size));
+                drawing.setCardIndex(start);
+                ArrayList<Integer> expected = new ArrayList<>();
+                boolean[] drawn = new boolean[size];
+                while (!drawn[drawing.getCardIndex()]) {
+                    drawn[drawing.getCardIndex()] = true;
+                    expected.add(drawing.getCardIndex());
+                    drawing.draw();
+                }
+                drawing.draw();
+
+                Stock stock = new Stock(firstCards(size));
+                stock.setCardIndex(start);
+                byte[] order = stock.getDrawOrder();
+                assertEquals(expected.size(), order.length, "size " + size + ", start " + start);
+                for (int i = 0; i < order.length; i++) {
+                    assertEquals((long) expected.get(i), order[i], "size " + size + ", start " + start);
+                }
+                stock.drawAll();
+                assertEquals(drawing.getCardIndex(), stock.getCardIndex(), "size " + size + ", start " + start);
+            }
+        }
+    }
+
+    @Test
+    void findsCardsAfterRemovalsAndInsertions() {
+        SplittableRandom random = new SplittableRandom(3);
+        Stock stock = new Stock(firstCards(Stock.MAX_CARDS));
+        ArrayList<Card> removed = new ArrayList<>();
+        ArrayList<Integer> removedAt = new ArrayList<>();
+
+        for (int step = 0; step < 500; step++) {
+            if (!removed.isEmpty() && (stock.getStock().isEmpty() || random.nextBoolean())) {
+                int last = removed.size() - 1;
+                stock.insertCard(removedAt.remove(last), removed.remove(last));
+            } // Undone in reverse order, as unmakeMove does
+            else {
+                int index = random.nextInt(stock.getStock().size());
+                removed.add(stock.getStock().get(index));
+                removedAt.add(index);
+                stock.removeCard(index);
+            }
+
+            for (int i = 0; i < stock.getStock().size(); i++) {
+                assertEquals(i, stock.getCardStockIndex(stock.getStock().get(i)));
+            }
+            for (Card card : removed) {
+                assertEquals(-1, stock.getCardStockIndex(card));
+            }
+            assertEquals(-1, stock.getCardStockIndex(Card.getCard(51)));
+        }
+    }
+
+    @Test
+    void setStockRejectsCardNotDealtToStock() {
+        Stock stock = new Stock(firstCards(10));
+        ArrayList<Card> cards = firstCards(3);
+        cards.add(Card.getCard(51));
+
+        assertThrows(IllegalArgumentException.class, () -> stock.setStock(cards));
+        assertEquals(10, stock.getStock().size());
+    }
+}
@@ -0,0 +1,99 @@
+package SolitaireSolver;
+
+import SolitaireSolver.Exceptions.InvalidOptionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuccessiveHalvingTest {
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void resetRun() {
+        Runs.reset();
+    }
+
+    @Test
+    void halvesCandidatesAndGivesSurvivorsTheRest() {
+        // 4 candidates and 8 simulations each: 4 simulations for all 4, then 8 more for the best 2
+        Run.RANDOMNESS_PERCENTAGE = 20;
+        int checked = 0;
+        for (int seed = 0; seed < 10; seed++) {
+            Solitaire game = new Solitaire(new Deck(new SplittableRandom(seed)));
+            ArrayList<Move> moves = game.getPossibleMoves();
+            if (moves.size() < 4) {
+                continue;
+            }
+            List<Move> all = List.copyOf(moves.subList(0, 4));
+            ArrayList<Move> candidates = new ArrayList<>(all);
+            String state = Positions.describe(game);
+            int faceUp = 52 - game.getHiddenCardsCount();
+
+            boolean won = Run.simulateMovesHalving(game, candidates, 8, new MoveJournal(),
+                    new SplittableRandom(seed));
+            if (won) {
+                continue;
+            } // A win leaves the game won
+            assertEquals(state, Positions.describe(game));
+            assertEquals(1, candidates.size());
+            // Every simulation ends with at least as many cards face up as it started with
+            int longRun = 0;
+            for (Move move : all) {
+                int score = move.getMonteCarloScore();
+                if (score >= 12 * faceUp && score <= 12 * 51) {
+                    longRun++;
+                }
+                else {
+                    assertTrue(score >= 4 * faceUp && score <= 4 * 51, "score " + score);
+                }
+            }
+            assertEquals(2, longRun);
+            assertTrue(candidates.getFirst().getMonteCarloScore() >= 12 * faceUp);
+            checked++;
+        }
+        assertTrue(checked > 0, "every deal was won");
+    }
+
+    @Test
+    void singleCandidateGetsWholeBudget() {
+        Run.RANDOMNESS_PERCENTAGE = 20;
+        Solitaire game = new Solitaire(new Deck(new SplittableRandom(19)));
+        ArrayList<Move> moves = game.getPossibleMoves();
+        ArrayList<Move> halving = new ArrayList<>(List.of(moves.getFirst()));
+        Move uniform = game.getMatchingMove(moves.getFirst(), game);
+
+        boolean halvingWon = Run.simulateMovesHalving(game, halving, 12, new MoveJournal(),
+                new SplittableRandom(20));
+        boolean uniformWon = Run.simulateMoves(game, new ArrayList<>(List.of(uniform)), 12, new MoveJournal(),
+                new SplittableRandom(20));
+
+        assertEquals(uniformWon, halvingWon);
+        assertEquals(uniform.getMonteCarloScore(), halving.getFirst().getMonteCarloScore());
+    }
+
+    @Test
+    void seededHalvingRunsPlayTheSameGames() throws IOException {
+        List<String> first = Runs.solve(dir.resolve("first.csv"), "2", "2", "m", "10", "6", "--seed=21",
+                "--rollout-budget=halving");
+        List<String> second = Runs.solve(dir.resolve("second.csv"), "2", "2", "m", "10", "6", "--seed=21",
+                "--rollout-budget=halving");
+
+        assertEquals(4, first.size());
+        assertEquals(first, second);
+    }
+
+    @Test
+    void rejectsUnknownBudget() {
+        assertThrows(InvalidOptionException.class,
+                () -> Runs.solve(dir.resolve("results.csv"), "1", "1", "m", "0", "1", "--rollout-budget=thirds"));
+    }
+}
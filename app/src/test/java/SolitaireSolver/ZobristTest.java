@@ -0,0 +1,87 @@
+package SolitaireSolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZobristTest {
+    @Test
+    void incrementalHashMatchesRecompute() {
+        SplittableRandom random = new SplittableRandom(2);
+        for (int deal = 0; deal < 50; deal++) {
+            Solitaire game = new Solitaire(new Deck(random));
+            assertEquals(Zobrist.hash(game), game.getStateHash());
+            for (int i = 0; i < 150; i++) {
+                ArrayList<Move> moves = game.getPossibleMoves();
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+                assertEquals(Zobrist.hash(game), game.getStateHash());
+            }
+        }
+    }
+
+    @Test
+    void equalStatesHaveEqualHashes() {
+        // Random play from one deal revisits states, often by different moves
+        SplittableRandom random = new SplittableRandom(4);
+        Deck deck = new Deck(new SplittableRandom(9));
+        HashMap<String, Long> hashes = new HashMap<>();
+        int revisits = 0;
+        for (int walk = 0; walk < 200; walk++) {
+            Solitaire game = new Solitaire(new Deck(deck.toCardIds()));
+            for (int i = 0; i < 40; i++) {
+                Long previous = hashes.putIfAbsent(Positions.describe(game), game.getStateHash());
+                if (previous != null) {
+                    assertEquals((long) previous, game.getStateHash());
+                    revisits++;
+                }
+                ArrayList<Move> moves = game.getPossibleMoves();
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+        assertTrue(revisits > 0);
+    }
+
+    @Test
+    void cardMovedBetweenPilesAtSameDepthChangesHash() {
+        Solitaire before = Positions.of("| KS QH", "| KC", "| KH");
+        Solitaire after = Positions.of("| KS", "| KC QH", "| KH");
+
+        assertNotEquals(before.getStateHash(), after.getStateHash());
+    }
+
+    @Test
+    void permutedPilesHaveEqualHashes() {
+        Solitaire game = Positions.of("KD 10S QC | JC 10D", "9D KC QS | JD", "KS QD | JS");
+        Solitaire permuted = Positions.of("", "KS QD | JS", "", "9D KC QS | JD", "", "", "KD 10S QC | JC 10D");
+
+        assertEquals(game.getStateHash(), permuted.getStateHash());
+        assertEquals(Zobrist.hash(game), Zobrist.hash(permuted));
+    }
+
+    @Test
+    void kingMovedToAnyEmptyPileGivesSameHash() {
+        long[] hashes = new long[3];
+        int[] emptyPiles = {0, 2, 6};
+        for (int i = 0; i < emptyPiles.length; i++) {
+            Solitaire game = Positions.of("", "QS | KH", "", "| KS", "| KC", "| KD");
+            Move move = new Move(Card.getCard(13, 'H'), 1, game.getPiles()[emptyPiles[i]]);
+            move.determineMoveType(game);
+            game.makeMove(move);
+            assertEquals(Zobrist.hash(game), game.getStateHash());
+            hashes[i] = game.getStateHash();
+        }
+
+        assertEquals(hashes[0], hashes[1]);
+        assertEquals(hashes[0], hashes[2]);
+    }
+}